@@ -961,4 +961,22 @@ CREATE TABLE `oauth_refresh_token` (
 BEGIN;
 COMMIT;
 
+-- ----------------------------
+-- Table structure for id_segment
+-- ----------------------------
+DROP TABLE IF EXISTS `id_segment`;
+CREATE TABLE `id_segment` (
+  `biz_tag` varchar(128) NOT NULL COMMENT '业务标识（表名）',
+  `max_id` bigint(20) NOT NULL DEFAULT '0' COMMENT '已分配的最大id',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`biz_tag`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin ROW_FORMAT=DYNAMIC COMMENT='号段模式id分配';
+
+-- ----------------------------
+-- Records of id_segment
+-- ----------------------------
+BEGIN;
+INSERT INTO `id_segment` VALUES ('c_common_login_log', 0, NOW());
+COMMIT;
+
 SET FOREIGN_KEY_CHECKS = 1;
@@ -30,6 +30,21 @@ public interface IAuthUserRepository {
      */
     AuthUser selectByAccount(String account);
 
+    /**
+     * 根据账户查询用户id
+     *
+     * @param account
+     * @return Long
+     */
+    Long selectIdByAccount(String account);
+
+    /**
+     * 查询全部账户
+     *
+     * @return List<String>
+     */
+    List<String> listAccounts();
+
     /**
      * 保存用户信息
      *
@@ -0,0 +1,65 @@
+package com.sparksys.authorization.domain.service;
+
+import com.sparksys.authorization.domain.repository.IAuthUserRepository;
+import com.sparksys.commons.redis.components.RedisBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * description: 账号布隆过滤器，拦截不可能存在的账号，避免撞库请求直接打到数据库
+ *
+ * @author zhouxinlei
+ * @date 2020-07-05 10:26:13
+ */
+@Component
+@Slf4j
+public class AccountBloomFilter {
+
+    private static final String BLOOM_FILTER_NAME = "bloom:account";
+
+    private final IAuthUserRepository authUserRepository;
+
+    private final RedisBloomFilter redisBloomFilter;
+
+    public AccountBloomFilter(IAuthUserRepository authUserRepository,
+                              ObjectProvider<RedissonClient> redissonClientProvider,
+                              @Value("${sparksys.account-bloom.enabled:false}") boolean enabled,
+                              @Value("${sparksys.account-bloom.expectedInsertions:1000000}") long expectedInsertions,
+                              @Value("${sparksys.account-bloom.falseProbability:0.01}") double falseProbability) {
+        this.authUserRepository = authUserRepository;
+        RedissonClient redissonClient = redissonClientProvider.getIfUnique();
+        if (enabled && redissonClient != null) {
+            this.redisBloomFilter = new RedisBloomFilter(redissonClient, BLOOM_FILTER_NAME, expectedInsertions,
+                    falseProbability);
+        } else {
+            this.redisBloomFilter = null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (redisBloomFilter == null) {
+            return;
+        }
+        try {
+            redisBloomFilter.init(authUserRepository::listAccounts);
+        } catch (Exception e) {
+            log.error("account bloom filter init failed, {}", e.getMessage());
+        }
+    }
+
+    public void add(String account) {
+        if (redisBloomFilter != null) {
+            redisBloomFilter.add(account);
+        }
+    }
+
+    public boolean mightContain(String account) {
+        return redisBloomFilter == null || redisBloomFilter.mightContain(account);
+    }
+}
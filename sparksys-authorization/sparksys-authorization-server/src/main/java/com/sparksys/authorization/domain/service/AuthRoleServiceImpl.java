@@ -11,6 +11,7 @@ import com.sparksys.authorization.interfaces.dto.role.AuthRoleUpdateDTO;
 import com.sparksys.commons.core.base.api.result.ApiPageResult;
 import com.sparksys.commons.core.entity.GlobalAuthUser;
 import com.sparksys.commons.mybatis.page.PageResult;
+import com.sparksys.commons.security.component.PermissionChangePublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -24,8 +25,12 @@ public class AuthRoleServiceImpl implements IAuthRoleService {
 
     private final IAuthRoleRepository authRoleRepository;
 
-    public AuthRoleServiceImpl(IAuthRoleRepository authRoleRepository) {
+    private final PermissionChangePublisher permissionChangePublisher;
+
+    public AuthRoleServiceImpl(IAuthRoleRepository authRoleRepository,
+                               PermissionChangePublisher permissionChangePublisher) {
         this.authRoleRepository = authRoleRepository;
+        this.permissionChangePublisher = permissionChangePublisher;
     }
 
     @Override
@@ -52,12 +57,12 @@ public class AuthRoleServiceImpl implements IAuthRoleService {
     public boolean updateAuthRole(GlobalAuthUser authUser, AuthRoleUpdateDTO authRoleUpdateDTO) {
         AuthRole authRole = AuthRoleConvert.INSTANCE.convertAuthRoleDO(authRoleUpdateDTO);
         authRole.setUpdateUser(authUser.getId());
-        return authRoleRepository.updateAuthRole(authRole);
+        return publishIfChanged(authRoleRepository.updateAuthRole(authRole));
     }
 
     @Override
     public boolean deleteAuthRole(Long id) {
-        return authRoleRepository.deleteAuthRole(id);
+        return publishIfChanged(authRoleRepository.deleteAuthRole(id));
     }
 
     @Override
@@ -66,6 +71,13 @@ public class AuthRoleServiceImpl implements IAuthRoleService {
         authRole.setId(roleId);
         authRole.setStatus(status);
         authRole.setUpdateUser(userId);
-        return authRoleRepository.updateAuthRole(authRole);
+        return publishIfChanged(authRoleRepository.updateAuthRole(authRole));
+    }
+
+    private boolean publishIfChanged(boolean changed) {
+        if (changed) {
+            permissionChangePublisher.publish();
+        }
+        return changed;
     }
 }
@@ -15,6 +15,8 @@ import com.sparksys.authorization.interfaces.dto.user.AuthUserDTO;
 import com.sparksys.authorization.interfaces.dto.user.AuthUserSaveDTO;
 import com.sparksys.authorization.interfaces.dto.user.AuthUserStatusDTO;
 import com.sparksys.authorization.interfaces.dto.user.AuthUserUpdateDTO;
+import com.sparksys.commons.redis.cache.CacheProviderService;
+import com.sparksys.commons.redis.constant.CacheKey;
 import com.sparksys.commons.security.entity.AuthUserDetail;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
@@ -22,6 +24,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -36,34 +39,55 @@ import java.util.stream.Collectors;
 public class AuthUserServiceImpl implements IAuthUserService {
 
     private final IAuthUserRepository authUserRepository;
+    private final CacheProviderService cacheProviderService;
+    private final AccountBloomFilter accountBloomFilter;
 
-    public AuthUserServiceImpl(IAuthUserRepository authUserRepository) {
+    public AuthUserServiceImpl(IAuthUserRepository authUserRepository,
+                               CacheProviderService cacheProviderService,
+                               AccountBloomFilter accountBloomFilter) {
         this.authUserRepository = authUserRepository;
+        this.cacheProviderService = cacheProviderService;
+        this.accountBloomFilter = accountBloomFilter;
     }
 
 
     @Override
     public boolean saveAuthUser(GlobalAuthUser authUser, AuthUserSaveDTO authUserSaveDTO) {
         AuthUser authUserDO = AuthUserConvert.INSTANCE.convertAuthUserDO(authUserSaveDTO);
-        return authUserRepository.saveAuthUser(authUserDO);
+        boolean result = authUserRepository.saveAuthUser(authUserDO);
+        if (result) {
+            accountBloomFilter.add(authUserDO.getAccount());
+            //清除该账号不存在的空值占位
+            cacheProviderService.remove(CacheKey.buildKey(CacheKey.USER_ACCOUNT, authUserDO.getAccount()));
+        }
+        return result;
     }
 
     @Override
     public boolean updateAuthUser(GlobalAuthUser authUser, AuthUserUpdateDTO authUserUpdateDTO) {
         AuthUser authUserDO = AuthUserConvert.INSTANCE.convertAuthUserDO(authUserUpdateDTO);
-        return authUserRepository.updateAuthUser(authUserDO);
+        AuthUser original = authUserRepository.selectById(authUserDO.getId());
+        return evictIfChanged(original, authUserDO.getId(), authUserRepository.updateAuthUser(authUserDO));
     }
 
     @Override
     public boolean deleteAuthUser(Long id) {
-        return authUserRepository.deleteAuthUser(id);
+        AuthUser authUser = authUserRepository.selectById(id);
+        boolean result = authUserRepository.deleteAuthUser(id);
+        if (result && authUser != null) {
+            cacheProviderService.remove(CacheKey.buildKey(CacheKey.AUTH_USER_DETAIL, authUser.getAccount()));
+            //清除账号到用户id的映射，之后的查询重新缓存为不存在的空值
+            cacheProviderService.remove(CacheKey.buildKey(CacheKey.USER_ACCOUNT, authUser.getAccount()));
+        }
+        return result;
     }
 
     @Override
     public boolean updateAuthUserStatus(GlobalAuthUser authUser, AuthUserStatusDTO authUserStatusDTO) {
         authUserStatusDTO.setUpdateUser(authUser.getId());
         AuthUser authUserDO = AuthUserConvert.INSTANCE.convertAuthUserDO(authUserStatusDTO);
-        return authUserRepository.updateAuthUser(authUserDO);
+        AuthUser original = authUserRepository.selectById(authUserDO.getId());
+        return evictIfChanged(original, authUserDO.getId(), authUserRepository.updateAuthUser(authUserDO));
     }
 
     @Override
@@ -128,7 +152,15 @@ public class AuthUserServiceImpl implements IAuthUserService {
 
     @Override
     public AuthUserDetail getAuthUserDetail(String account) {
-        AuthUser authUser = authUserRepository.selectByAccount(account);
+        if (!accountBloomFilter.mightContain(account)) {
+            return null;
+        }
+        Number userId = cacheProviderService.getAllowNull(CacheKey.buildKey(CacheKey.USER_ACCOUNT, account),
+                authUserRepository::selectIdByAccount, account, null);
+        if (userId == null) {
+            return null;
+        }
+        AuthUser authUser = authUserRepository.selectById(userId.longValue());
         if (ObjectUtils.isNotEmpty(authUser)) {
             List<String> userPermissions = authUserRepository.getAuthUserPermissions(authUser.getId());
             GlobalAuthUser globalAuthUser = AuthUserConvert.INSTANCE.convertGlobalAuthUser(authUser);
@@ -137,4 +169,34 @@ public class AuthUserServiceImpl implements IAuthUserService {
         }
         return null;
     }
+
+    /**
+     * 用户信息变更后清除认证用户缓存，下次请求时重新加载
+     * <p>
+     * 账号被修改时，变更前后两个账号的用户详情及账号到用户id的映射都需要清除，
+     * 否则旧账号仍可通过缓存登录，新账号可能命中之前缓存的不存在空值
+     *
+     * @param original 变更前的用户
+     * @param id       用户id
+     * @param changed  是否变更成功
+     * @return boolean
+     */
+    private boolean evictIfChanged(AuthUser original, Long id, boolean changed) {
+        if (changed) {
+            Set<String> accounts = new HashSet<>();
+            if (original != null) {
+                accounts.add(original.getAccount());
+            }
+            AuthUser authUser = authUserRepository.selectById(id);
+            if (authUser != null && accounts.add(authUser.getAccount())) {
+                // 新账号加入布隆过滤器，否则会被当作不存在的账号直接拦截
+                accountBloomFilter.add(authUser.getAccount());
+            }
+            accounts.stream().filter(Objects::nonNull).forEach(account -> {
+                cacheProviderService.remove(CacheKey.buildKey(CacheKey.AUTH_USER_DETAIL, account));
+                cacheProviderService.remove(CacheKey.buildKey(CacheKey.USER_ACCOUNT, account));
+            });
+        }
+        return changed;
+    }
 }
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * description：用户仓储层实现类
@@ -38,6 +39,22 @@ public class AuthUserRepository implements IAuthUserRepository {
         return authUserMapper.selectOne(queryWrapper);
     }
 
+    @Override
+    public Long selectIdByAccount(String account) {
+        QueryWrapper<AuthUser> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id");
+        queryWrapper.eq("account", account);
+        AuthUser authUser = authUserMapper.selectOne(queryWrapper);
+        return authUser == null ? null : authUser.getId();
+    }
+
+    @Override
+    public List<String> listAccounts() {
+        QueryWrapper<AuthUser> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("account");
+        return authUserMapper.selectObjs(queryWrapper).stream().map(String::valueOf).collect(Collectors.toList());
+    }
+
     @Override
     public boolean saveAuthUser(AuthUser authUser) {
         authUser.setStatus(true);
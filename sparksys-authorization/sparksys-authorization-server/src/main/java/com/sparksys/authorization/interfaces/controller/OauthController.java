@@ -2,6 +2,8 @@ package com.sparksys.authorization.interfaces.controller;
 
 import com.sparksys.authorization.domain.service.AuthUserDetailsService;
 import com.sparksys.commons.core.entity.GlobalAuthUser;
+import com.sparksys.commons.redis.annotation.LimitType;
+import com.sparksys.commons.redis.annotation.RateLimit;
 import com.sparksys.commons.security.entity.AuthToken;
 import com.sparksys.commons.security.request.AuthRequest;
 import com.sparksys.commons.web.annotation.ResponseResult;
@@ -11,6 +13,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import com.sparksys.commons.web.utils.HttpResponseUtils;
 import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
 
 /**
  * description：登录Controller
@@ -32,6 +35,7 @@ public class OauthController {
 
     @ApiOperation("系统登录")
     @PostMapping("/login")
+    @RateLimit(key = "login", limitType = LimitType.IP, rate = 20, period = 1, timeUnit = TimeUnit.MINUTES)
     public AuthToken login(@Validated @RequestBody AuthRequest authRequest) {
         return authUserDetailsService.login(authRequest);
     }
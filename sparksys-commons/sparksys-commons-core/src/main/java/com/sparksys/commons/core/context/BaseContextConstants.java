@@ -15,6 +15,7 @@ public class BaseContextConstants {
     public static final String JWT_KEY_TOKEN_TYPE = "token_type";
     public static final String JWT_KEY_ACCOUNT = "account";
     public static final String JWT_KEY_CLIENT_ID = "client_id";
+    public static final String JWT_KEY_PERMISSION_VERSION = "pv";
     public static final String JWT_SIGN_KEY = "sparksys";
     public static final String REFRESH_TOKEN_KEY = "refresh_token";
     public static final String BEARER_HEADER_KEY = "token";
@@ -25,6 +26,10 @@ public class BaseContextConstants {
     public static final String BASIC_HEADER_PREFIX_EXT = "Basic%20";
     public static final String IS_BOOT = "boot";
     public static final String TRACE_ID_HEADER = "x-trace-header";
+    /**
+     * 网关校验token后转发的签名身份信息
+     */
+    public static final String IDENTITY_HEADER = "x-identity-header";
     public static final String LOG_TRACE_ID = "trace";
     public static final String GRAY_VERSION = "grayversion";
 
@@ -40,4 +40,7 @@ public class GlobalAuthUser implements Serializable {
     @ApiModelProperty(value = "权限列表")
     private List<String> permissions;
 
+    @ApiModelProperty(value = "权限版本号")
+    private Long permissionVersion;
+
 }
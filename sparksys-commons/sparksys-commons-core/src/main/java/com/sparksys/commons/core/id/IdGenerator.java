@@ -0,0 +1,31 @@
+package com.sparksys.commons.core.id;
+
+/**
+ * description: 主键生成器
+ *
+ * @author zhouxinlei
+ * @date 2020-07-11 09:10:24
+ */
+public interface IdGenerator {
+
+    /**
+     * 生成一个id
+     *
+     * @return long
+     */
+    long nextId();
+
+    /**
+     * 批量生成id
+     *
+     * @param count 数量
+     * @return long[]
+     */
+    default long[] nextIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,19 @@
+package com.sparksys.commons.core.id;
+
+/**
+ * description: 号段分配器，每次原子地为业务标识预留一段连续id
+ *
+ * @author zhouxinlei
+ * @date 2020-07-12 09:30:16
+ */
+public interface SegmentAllocator {
+
+    /**
+     * 预留号段
+     *
+     * @param tag  业务标识，如表名
+     * @param step 号段长度
+     * @return 预留后的最大id，本次号段为 (maxId - step, maxId]
+     */
+    long allocate(String tag, int step);
+}
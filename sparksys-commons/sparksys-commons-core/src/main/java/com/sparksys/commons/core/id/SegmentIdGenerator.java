@@ -0,0 +1,155 @@
+package com.sparksys.commons.core.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * description: 号段模式id生成器，生成单调递增的短id，索引局部性优于雪花算法
+ * 双缓冲：当前号段使用到一定比例时异步预取下一号段，当前号段用完直接切换，发号不等待分配
+ *
+ * @author zhouxinlei
+ * @date 2020-07-12 09:42:08
+ */
+@Slf4j
+public class SegmentIdGenerator implements IdGenerator {
+
+    private static final long SWITCH_WAIT_MILLIS = 100;
+
+    private final String tag;
+
+    private final SegmentAllocator allocator;
+
+    private final int step;
+
+    private final double prefetchRatio;
+
+    private final Executor executor;
+
+    private final Object lock = new Object();
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private volatile Segment current = new Segment(0, 0, 0);
+
+    private volatile Segment next;
+
+    /**
+     * @param tag           业务标识
+     * @param allocator     号段分配器
+     * @param step          号段长度
+     * @param prefetchRatio 当前号段使用比例达到该值时预取下一号段
+     * @param executor      预取线程池
+     */
+    public SegmentIdGenerator(String tag, SegmentAllocator allocator, int step, double prefetchRatio,
+                              Executor executor) {
+        if (step <= 0 || prefetchRatio <= 0 || prefetchRatio >= 1) {
+            throw new IllegalArgumentException("step must be positive and prefetch ratio must be in (0, 1)");
+        }
+        this.tag = tag;
+        this.allocator = allocator;
+        this.step = step;
+        this.prefetchRatio = prefetchRatio;
+        this.executor = executor;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Segment segment = current;
+            long id = segment.cursor.getAndIncrement();
+            if (id < segment.max) {
+                if (id >= segment.prefetchAt) {
+                    prefetch(segment);
+                }
+                return id;
+            }
+            switchSegment(segment);
+        }
+    }
+
+    /**
+     * 预取下一号段，发号线程读到的号段已被切换时不预取，避免刚切换的号段还没怎么使用就提前预取
+     *
+     * @param segment 发号线程读到的号段
+     */
+    void prefetch(Segment segment) {
+        if (segment != current || next != null || !loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    next = allocate();
+                } catch (Exception e) {
+                    log.error("prefetch id segment failed, tag:{}, {}", tag, e.getMessage());
+                } finally {
+                    loading.set(false);
+                    synchronized (lock) {
+                        lock.notifyAll();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.set(false);
+        }
+    }
+
+    /**
+     * 当前号段用完，切换到预取的号段；预取未完成时等待，预取失败时同步分配
+     */
+    private void switchSegment(Segment exhausted) {
+        synchronized (lock) {
+            while (current == exhausted) {
+                Segment prefetched = next;
+                if (prefetched != null) {
+                    next = null;
+                    current = prefetched;
+                } else if (loading.get()) {
+                    try {
+                        lock.wait(SWITCH_WAIT_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("interrupted while waiting for id segment of " + tag);
+                    }
+                } else {
+                    current = allocate();
+                }
+            }
+        }
+    }
+
+    Segment currentSegment() {
+        return current;
+    }
+
+    private Segment allocate() {
+        long maxId = allocator.allocate(tag, step);
+        long start = maxId - step + 1;
+        return new Segment(start, maxId + 1, start + (long) (step * prefetchRatio));
+    }
+
+    static class Segment {
+
+        private final AtomicLong cursor;
+
+        /**
+         * 号段上界（不包含）
+         */
+        private final long max;
+
+        /**
+         * 发到该id时开始预取下一号段
+         */
+        private final long prefetchAt;
+
+        Segment(long start, long max, long prefetchAt) {
+            this.cursor = new AtomicLong(start);
+            this.max = max;
+            this.prefetchAt = prefetchAt;
+        }
+    }
+}
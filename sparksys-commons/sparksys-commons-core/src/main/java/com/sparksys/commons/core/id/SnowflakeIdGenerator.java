@@ -0,0 +1,123 @@
+package com.sparksys.commons.core.id;
+
+/**
+ * description: 雪花算法id生成器，位布局及起始时间与hutool Snowflake一致，可与历史id混用
+ * 时钟小幅回拨时沿用上次时间戳继续分配序列号，超过容忍范围时抛出异常
+ *
+ * @author zhouxinlei
+ * @date 2020-07-11 09:18:51
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    private static final long EPOCH = 1288834974657L;
+
+    private static final long WORKER_ID_BITS = 5L;
+
+    private static final long DATA_CENTER_ID_BITS = 5L;
+
+    private static final long SEQUENCE_BITS = 12L;
+
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+
+    public static final long MAX_DATA_CENTER_ID = ~(-1L << DATA_CENTER_ID_BITS);
+
+    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
+
+    private static final long DATA_CENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+
+    private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATA_CENTER_ID_BITS;
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private final long workerId;
+
+    private final long dataCenterId;
+
+    /**
+     * 允许的最大时钟回拨（单位：毫秒）
+     */
+    private final long maxBackwardMillis;
+
+    private long sequence;
+
+    private long lastTimestamp;
+
+    public SnowflakeIdGenerator(long workerId, long dataCenterId) {
+        this(workerId, dataCenterId, 5, -1L);
+    }
+
+    /**
+     * @param workerId          机器id
+     * @param dataCenterId      数据中心id
+     * @param maxBackwardMillis 允许的最大时钟回拨（单位：毫秒）
+     * @param lastTimestamp     该机器id上次使用的时间戳，未知时传-1
+     */
+    public SnowflakeIdGenerator(long workerId, long dataCenterId, long maxBackwardMillis, long lastTimestamp) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("worker id must be in [0, " + MAX_WORKER_ID + "]");
+        }
+        if (dataCenterId < 0 || dataCenterId > MAX_DATA_CENTER_ID) {
+            throw new IllegalArgumentException("data center id must be in [0, " + MAX_DATA_CENTER_ID + "]");
+        }
+        this.workerId = workerId;
+        this.dataCenterId = dataCenterId;
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    @Override
+    public synchronized long nextId() {
+        return generate();
+    }
+
+    @Override
+    public synchronized long[] nextIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = generate();
+        }
+        return ids;
+    }
+
+    /**
+     * 最近一次生成id使用的时间戳
+     *
+     * @return long
+     */
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    private long generate() {
+        long timestamp = System.currentTimeMillis();
+        if (timestamp < lastTimestamp) {
+            long offset = lastTimestamp - timestamp;
+            if (offset > maxBackwardMillis) {
+                throw new IllegalStateException("Clock moved backwards. Refusing to generate id for "
+                        + offset + "ms");
+            }
+            timestamp = lastTimestamp;
+        }
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp = tilNextMillis(lastTimestamp);
+            }
+        } else {
+            sequence = 0L;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << TIMESTAMP_SHIFT)
+                | (dataCenterId << DATA_CENTER_ID_SHIFT)
+                | (workerId << WORKER_ID_SHIFT)
+                | sequence;
+    }
+
+    private long tilNextMillis(long lastTimestamp) {
+        long timestamp = System.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            timestamp = System.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
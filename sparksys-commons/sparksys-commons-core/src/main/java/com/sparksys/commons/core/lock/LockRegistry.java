@@ -0,0 +1,87 @@
+package com.sparksys.commons.core.lock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * description: 按key缓存的锁实例，引用计数为0时移除，避免key数量不断增长时锁实例无法回收
+ * 每次获取锁（包括重入和等待中）都调用一次{@link #retain(String)}，获取失败或释放锁后调用一次
+ * {@link #release(String, Object)}；引用计数只在ConcurrentHashMap.compute中修改
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 21:20:36
+ */
+public class LockRegistry<T> {
+
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    private final Function<String, T> factory;
+
+    /**
+     * @param factory 按key创建锁实例
+     */
+    public LockRegistry(Function<String, T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * 获取key对应的锁实例，不存在时创建，引用计数加一
+     *
+     * @param key 键
+     * @return T
+     */
+    public T retain(String key) {
+        return entries.compute(key, (k, entry) -> {
+            Entry<T> current = entry == null ? new Entry<>(factory.apply(k)) : entry;
+            current.references++;
+            return current;
+        }).lock;
+    }
+
+    /**
+     * 引用计数减一，为0时移除；lock不是当前实例时不做处理
+     *
+     * @param key  键
+     * @param lock retain返回的锁实例
+     */
+    public void release(String key, T lock) {
+        entries.computeIfPresent(key, (k, current) -> {
+            if (current.lock != lock) {
+                return current;
+            }
+            return --current.references == 0 ? null : current;
+        });
+    }
+
+    /**
+     * 当前的锁实例，不增加引用计数
+     *
+     * @param key 键
+     * @return 没有线程使用时返回null
+     */
+    public T get(String key) {
+        Entry<T> entry = entries.get(key);
+        return entry == null ? null : entry.lock;
+    }
+
+    /**
+     * 持有引用的锁实例数量
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry<T> {
+
+        private final T lock;
+
+        private int references;
+
+        Entry(T lock) {
+            this.lock = lock;
+        }
+    }
+}
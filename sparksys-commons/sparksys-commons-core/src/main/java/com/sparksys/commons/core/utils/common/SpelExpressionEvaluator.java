@@ -0,0 +1,78 @@
+package com.sparksys.commons.core.utils.common;
+
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * description: 方法注解SpEL表达式解析，支持 #参数名、#p0、#a0 及 #result
+ *
+ * @author zhouxinlei
+ * @date 2020-07-08 09:40:27
+ */
+public class SpelExpressionEvaluator {
+
+    public static final String RESULT_VARIABLE = "result";
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    /**
+     * 创建方法上下文
+     *
+     * @param method 方法
+     * @param args   参数
+     * @param target 目标对象
+     * @return EvaluationContext
+     */
+    public EvaluationContext createContext(Method method, Object[] args, Object target) {
+        return new MethodBasedEvaluationContext(target, method, args, parameterNameDiscoverer);
+    }
+
+    /**
+     * 设置方法返回值，供 #result 使用
+     *
+     * @param context 上下文
+     * @param result  返回值
+     */
+    public void setResult(EvaluationContext context, Object result) {
+        context.setVariable(RESULT_VARIABLE, result);
+    }
+
+    /**
+     * 解析表达式
+     *
+     * @param expression 表达式
+     * @param context    上下文
+     * @param type       结果类型
+     * @return T
+     */
+    public <T> T getValue(String expression, EvaluationContext context, Class<T> type) {
+        return expressionCache.computeIfAbsent(expression, parser::parseExpression).getValue(context, type);
+    }
+
+    /**
+     * 解析条件表达式，表达式为空时返回默认值
+     *
+     * @param expression   表达式
+     * @param context      上下文
+     * @param defaultValue 默认值
+     * @return boolean
+     */
+    public boolean getCondition(String expression, EvaluationContext context, boolean defaultValue) {
+        if (expression == null || expression.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.TRUE.equals(getValue(expression, context, Boolean.class));
+    }
+}
@@ -0,0 +1,110 @@
+package com.sparksys.commons.core.utils.jwt;
+
+import cn.hutool.core.convert.Convert;
+import com.google.common.hash.Hashing;
+import com.sparksys.commons.core.context.BaseContextConstants;
+import com.sparksys.commons.core.entity.GlobalAuthUser;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * description: 网关与下游服务之间传递的签名身份信息
+ * <p>
+ * 格式：userId|base64url(account)|base64url(name)|权限版本号|过期时间戳|base64url(HmacSHA256签名)
+ * 网关校验token后生成，下游服务校验签名及过期时间后直接使用，无需再次解析token或查询redis
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 10:12:37
+ */
+public class IdentityHeaderUtil {
+
+    private static final String SEPARATOR = "|";
+
+    private static final String SEPARATOR_REGEX = "\\|";
+
+    private static final int FIELD_COUNT = 6;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 根据校验通过的token生成身份信息
+     *
+     * @param tokenInfo token信息
+     * @param secret    签名密钥
+     * @return token中没有用户id时返回null
+     */
+    public static String sign(TokenInfo tokenInfo, String secret) {
+        Map<String, Object> claims = tokenInfo.getClaims();
+        Long userId = Convert.toLong(claims.get(BaseContextConstants.JWT_KEY_USER_ID));
+        if (userId == null) {
+            return null;
+        }
+        String payload = String.join(SEPARATOR,
+                String.valueOf(userId),
+                encode(tokenInfo.getSubject()),
+                encode(Convert.toStr(claims.get(BaseContextConstants.JWT_KEY_NAME))),
+                String.valueOf(Convert.toLong(claims.get(BaseContextConstants.JWT_KEY_PERMISSION_VERSION), 0L)),
+                String.valueOf(tokenInfo.getExpirationMillis()));
+        return payload.concat(SEPARATOR).concat(signature(payload, secret));
+    }
+
+    /**
+     * 校验身份信息
+     *
+     * @param identity 身份信息
+     * @param secret   签名密钥
+     * @return 签名不一致、格式错误或已过期时返回null
+     */
+    public static GlobalAuthUser verify(String identity, String secret) {
+        if (StringUtils.isAnyBlank(identity, secret)) {
+            return null;
+        }
+        int index = identity.lastIndexOf(SEPARATOR);
+        if (index < 0) {
+            return null;
+        }
+        String payload = identity.substring(0, index);
+        byte[] expected = signature(payload, secret).getBytes(StandardCharsets.UTF_8);
+        byte[] actual = identity.substring(index + 1).getBytes(StandardCharsets.UTF_8);
+        // 定长时间比较，避免通过响应时间推测签名
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        String[] fields = payload.split(SEPARATOR_REGEX, -1);
+        if (fields.length != FIELD_COUNT - 1) {
+            return null;
+        }
+        try {
+            if (Long.parseLong(fields[4]) <= System.currentTimeMillis()) {
+                return null;
+            }
+            GlobalAuthUser authUser = new GlobalAuthUser();
+            authUser.setId(Long.valueOf(fields[0]));
+            authUser.setAccount(decode(fields[1]));
+            authUser.setName(decode(fields[2]));
+            authUser.setPermissionVersion(Long.valueOf(fields[3]));
+            return authUser;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String signature(String payload, String secret) {
+        return ENCODER.encodeToString(Hashing.hmacSha256(secret.getBytes(StandardCharsets.UTF_8))
+                .hashString(payload, StandardCharsets.UTF_8).asBytes());
+    }
+
+    private static String encode(String value) {
+        return value == null ? StringUtils.EMPTY : ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : new String(DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -1,15 +1,23 @@
 package com.sparksys.commons.core.utils.jwt;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.sparksys.commons.core.constant.CoreConstant;
+import com.sparksys.commons.core.context.BaseContextConstants;
+import com.sparksys.commons.core.entity.GlobalAuthUser;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * description: JwtToken生成工具类
@@ -20,6 +28,19 @@ import java.util.Map;
 @Slf4j
 public class JwtTokenUtil {
 
+    /**
+     * 校验结果缓存条数
+     */
+    private static final long TOKEN_CACHE_SIZE = 10000L;
+
+    /**
+     * token摘要 -> 校验通过的token信息，写入后最长保留token有效期，过期的token在读取时剔除
+     */
+    private static final Cache<HashCode, TokenInfo> TOKEN_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(TOKEN_CACHE_SIZE)
+            .expireAfterWrite(CoreConstant.JwtTokenConstant.JWT_EXPIRATION, TimeUnit.SECONDS)
+            .build();
+
     /**
      * 根据负责生成JWT的token
      *
@@ -34,6 +55,36 @@ public class JwtTokenUtil {
                 .compact();
     }
 
+    /**
+     * 解析并校验token，签名及过期时间在解析时一并校验。
+     * 校验通过的结果按token摘要缓存，同一token再次请求时不再重复解析及验签，缓存项在token过期后失效
+     *
+     * @param token 客户端传入的token
+     * @return 校验不通过时返回null
+     */
+    public static TokenInfo parseToken(String token) {
+        if (StringUtils.isEmpty(token)) {
+            return null;
+        }
+        HashCode digest = Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+        TokenInfo tokenInfo = TOKEN_CACHE.getIfPresent(digest);
+        if (tokenInfo != null) {
+            if (!tokenInfo.isExpired()) {
+                return tokenInfo;
+            }
+            TOKEN_CACHE.invalidate(digest);
+            return null;
+        }
+        Claims claims = getClaimsFromToken(token);
+        if (claims == null) {
+            // 校验失败的token不缓存，避免无效token挤占缓存
+            return null;
+        }
+        tokenInfo = new TokenInfo(claims);
+        TOKEN_CACHE.put(digest, tokenInfo);
+        return tokenInfo;
+    }
+
     /**
      * 从token中获取JWT中的负载
      *
@@ -69,14 +120,8 @@ public class JwtTokenUtil {
      * @return
      */
     public static String getUserNameFromToken(String token) {
-        String username;
-        try {
-            Claims claims = getClaimsFromToken(token);
-            username = claims.getSubject();
-        } catch (Exception e) {
-            username = null;
-        }
-        return username;
+        TokenInfo tokenInfo = parseToken(token);
+        return tokenInfo == null ? null : tokenInfo.getSubject();
     }
 
     /**
@@ -86,48 +131,51 @@ public class JwtTokenUtil {
      * @param userName 从数据库中查询出来的用户信息
      */
     public static boolean validateToken(String token, String userName) {
-        String username = getUserNameFromToken(token);
-        return username.equals(userName) && !isTokenExpired(token);
+        TokenInfo tokenInfo = parseToken(token);
+        return tokenInfo != null && StringUtils.equals(tokenInfo.getSubject(), userName);
     }
 
     /**
-     * 判断token是否已经失效
+     * 判断token是否已经失效，校验不通过的token视为已失效
      *
      * @param token
      * @return
      */
     public static boolean isTokenExpired(String token) {
-        Date expiredDate = getExpiredDateFromToken(token);
-        if (ObjectUtils.isNotEmpty(expiredDate)) {
-            return expiredDate.before(new Date());
-        }
-        return false;
+        TokenInfo tokenInfo = parseToken(token);
+        return tokenInfo == null || tokenInfo.isExpired();
     }
 
     /**
-     * 从token中获取过期时间
+     * 根据用户信息生成token
      *
-     * @param token
+     * @param userName
      * @return
      */
-    private static Date getExpiredDateFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        if (ObjectUtils.isNotEmpty(claims)) {
-            return claims.getExpiration();
-        }
-        return null;
+    public static String generateToken(String userName) {
+        Map<String, Object> claims = new HashMap<>(2);
+        claims.put(CoreConstant.JwtTokenConstant.CLAIM_KEY_USERNAME, userName);
+        claims.put(CoreConstant.JwtTokenConstant.CLAIM_KEY_CREATED, new Date());
+        return generateToken(claims);
     }
 
     /**
-     * 根据用户信息生成token
+     * 根据用户信息生成token，负载中带有用户id、姓名及权限版本号，供网关生成身份信息
      *
-     * @param userName
+     * @param authUser 认证用户
      * @return
      */
-    public static String generateToken(String userName) {
-        Map<String, Object> claims = new HashMap<>(2);
-        claims.put(CoreConstant.JwtTokenConstant.CLAIM_KEY_USERNAME, userName);
+    public static String generateToken(GlobalAuthUser authUser) {
+        Map<String, Object> claims = new HashMap<>(8);
+        claims.put(CoreConstant.JwtTokenConstant.CLAIM_KEY_USERNAME, authUser.getAccount());
         claims.put(CoreConstant.JwtTokenConstant.CLAIM_KEY_CREATED, new Date());
+        claims.put(BaseContextConstants.JWT_KEY_USER_ID, authUser.getId());
+        if (authUser.getName() != null) {
+            claims.put(BaseContextConstants.JWT_KEY_NAME, authUser.getName());
+        }
+        if (authUser.getPermissionVersion() != null) {
+            claims.put(BaseContextConstants.JWT_KEY_PERMISSION_VERSION, authUser.getPermissionVersion());
+        }
         return generateToken(claims);
     }
 
@@ -148,7 +196,12 @@ public class JwtTokenUtil {
      * @return
      */
     public String refreshToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        TokenInfo tokenInfo = parseToken(token);
+        if (tokenInfo == null) {
+            return null;
+        }
+        // 缓存中的负载只读，复制后修改
+        Map<String, Object> claims = new HashMap<>(tokenInfo.getClaims());
         claims.put(CoreConstant.JwtTokenConstant.CLAIM_KEY_CREATED, new Date());
         return generateToken(claims);
     }
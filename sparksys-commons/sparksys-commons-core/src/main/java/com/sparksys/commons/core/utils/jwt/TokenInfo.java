@@ -0,0 +1,54 @@
+package com.sparksys.commons.core.utils.jwt;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * description: 校验通过的token信息，不可变，可在线程间共享及缓存
+ *
+ * @author zhouxinlei
+ * @date 2020-07-15 17:06:21
+ */
+@Getter
+public final class TokenInfo {
+
+    /**
+     * 用户名
+     */
+    private final String subject;
+
+    /**
+     * 过期时间戳（毫秒），token未设置过期时间时为Long.MAX_VALUE
+     */
+    private final long expirationMillis;
+
+    /**
+     * 负载，只读
+     */
+    private final Map<String, Object> claims;
+
+    TokenInfo(Claims claims) {
+        this.subject = claims.getSubject();
+        Date expiration = claims.getExpiration();
+        this.expirationMillis = expiration == null ? Long.MAX_VALUE : expiration.getTime();
+        this.claims = Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+    }
+
+    public Date getExpiration() {
+        return expirationMillis == Long.MAX_VALUE ? null : new Date(expirationMillis);
+    }
+
+    /**
+     * token是否已过期
+     *
+     * @return boolean
+     */
+    public boolean isExpired() {
+        return expirationMillis <= System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,78 @@
+package com.sparksys.commons.core.utils.limit;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: 按key隔离的本地限流器，每个key一个{@link TokenBucketLimiter}
+ * 令牌桶保存在分段、限容量、访问过期的本地缓存中，避免按IP/用户限流时内存无限增长
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 15:02:11
+ */
+public class KeyedRateLimiter {
+
+    private final LoadingCache<String, TokenBucketLimiter> limiters;
+
+    /**
+     * @param rate              每个周期补充的令牌数
+     * @param period            周期
+     * @param unit              周期单位
+     * @param capacity          桶容量
+     * @param maximumSize       最多保留的key数量
+     * @param expireAfterAccess key空闲多久后移除（单位：秒）
+     */
+    public KeyedRateLimiter(long rate, long period, TimeUnit unit, long capacity, long maximumSize,
+                            long expireAfterAccess) {
+        // 校验参数，避免在加载时才抛出异常
+        new TokenBucketLimiter(rate, period, unit, capacity);
+        this.limiters = CacheBuilder.newBuilder()
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess, TimeUnit.SECONDS)
+                .build(new CacheLoader<String, TokenBucketLimiter>() {
+                    @Override
+                    public TokenBucketLimiter load(String key) {
+                        return new TokenBucketLimiter(rate, period, unit, capacity);
+                    }
+                });
+    }
+
+    public KeyedRateLimiter(long rate, long period, TimeUnit unit, long capacity) {
+        this(rate, period, unit, capacity, 10000, Math.max(60, unit.toSeconds(period) * 2));
+    }
+
+    public boolean tryAcquire(String key) {
+        return limiters.getUnchecked(key).tryAcquire();
+    }
+
+    public boolean tryAcquire(String key, int permits) {
+        return limiters.getUnchecked(key).tryAcquire(permits);
+    }
+
+    /**
+     * 非阻塞获取令牌
+     *
+     * @param key     限流key
+     * @param permits 令牌数
+     * @return 0表示获取成功，否则为令牌补足预计需要等待的毫秒数
+     */
+    public long tryAcquireWithWait(String key, int permits) {
+        return limiters.getUnchecked(key).tryAcquireWithWait(permits);
+    }
+
+    public boolean tryAcquire(String key, int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        return limiters.getUnchecked(key).tryAcquire(permits, timeout, unit);
+    }
+
+    public void acquire(String key, int permits) throws InterruptedException {
+        limiters.getUnchecked(key).acquire(permits);
+    }
+
+    public long size() {
+        return limiters.size();
+    }
+}
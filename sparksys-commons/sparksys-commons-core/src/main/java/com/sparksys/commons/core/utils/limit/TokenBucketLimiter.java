@@ -0,0 +1,239 @@
+package com.sparksys.commons.core.utils.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * description: 无锁令牌桶限流器
+ * 剩余令牌数与上次补充时间打包在一个long中（高42位为相对毫秒时间，低22位为令牌数），通过CAS更新
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 14:20:36
+ */
+public final class TokenBucketLimiter {
+
+    private static final int TOKEN_BITS = 22;
+
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    /**
+     * 令牌桶最大容量
+     */
+    public static final long MAX_CAPACITY = TOKEN_MASK;
+
+    private final long rate;
+
+    private final long intervalMillis;
+
+    private final long capacity;
+
+    /**
+     * 从空桶补满所需毫秒数
+     */
+    private final long fullRefillMillis;
+
+    /**
+     * 纳秒时钟，默认System.nanoTime
+     */
+    private final LongSupplier ticker;
+
+    private final long startNanos;
+
+    private final AtomicLong state;
+
+    /**
+     * 构造令牌桶，初始为满桶
+     *
+     * @param rate     每个周期补充的令牌数
+     * @param period   周期
+     * @param unit     周期单位
+     * @param capacity 桶容量
+     */
+    public TokenBucketLimiter(long rate, long period, TimeUnit unit, long capacity) {
+        this(rate, period, unit, capacity, System::nanoTime);
+    }
+
+    /**
+     * 使用指定时钟构造令牌桶，便于测试时控制时间
+     *
+     * @param rate     每个周期补充的令牌数
+     * @param period   周期
+     * @param unit     周期单位
+     * @param capacity 桶容量
+     * @param ticker   纳秒时钟
+     */
+    TokenBucketLimiter(long rate, long period, TimeUnit unit, long capacity, LongSupplier ticker) {
+        if (rate <= 0 || period <= 0 || capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("rate, period and capacity must be positive, capacity <= "
+                    + MAX_CAPACITY);
+        }
+        this.rate = rate;
+        this.intervalMillis = Math.max(1, unit.toMillis(period));
+        if (intervalMillis > Long.MAX_VALUE / capacity) {
+            throw new IllegalArgumentException("period is too long for capacity " + capacity);
+        }
+        this.capacity = capacity;
+        this.fullRefillMillis = ceilDiv(capacity * intervalMillis, rate);
+        this.ticker = ticker;
+        this.startNanos = ticker.getAsLong();
+        this.state = new AtomicLong(pack(0, capacity));
+    }
+
+    /**
+     * 非阻塞获取一个令牌
+     *
+     * @return boolean
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * 非阻塞获取令牌
+     *
+     * @param permits 令牌数
+     * @return boolean
+     */
+    public boolean tryAcquire(int permits) {
+        return acquireOrWait(permits) == 0;
+    }
+
+    /**
+     * 非阻塞获取令牌，获取失败时返回令牌补足预计需要等待的时间，可用于设置Retry-After
+     *
+     * @param permits 令牌数
+     * @return 0表示获取成功，否则为令牌补足预计需要等待的毫秒数
+     */
+    public long tryAcquireWithWait(int permits) {
+        return acquireOrWait(permits);
+    }
+
+    /**
+     * 在超时时间内获取令牌，令牌不足时挂起等待补充
+     *
+     * @param permits 令牌数
+     * @param timeout 超时时间
+     * @param unit    超时单位
+     * @return boolean
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long waitMillis = acquireOrWait(permits);
+            if (waitMillis == 0) {
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            long waitNanos = TimeUnit.MILLISECONDS.toNanos(waitMillis);
+            if (waitNanos > remaining) {
+                return false;
+            }
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * 阻塞获取令牌，直到获取成功
+     *
+     * @param permits 令牌数
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    public void acquire(int permits) throws InterruptedException {
+        while (true) {
+            long waitMillis = acquireOrWait(permits);
+            if (waitMillis == 0) {
+                return;
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(waitMillis));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * 当前可用令牌数
+     *
+     * @return long
+     */
+    public long availablePermits() {
+        return tokens(refill(state.get(), nowMillis()));
+    }
+
+    /**
+     * 尝试扣减令牌
+     *
+     * @param permits 令牌数
+     * @return 0表示获取成功，否则为令牌补足预计需要等待的毫秒数
+     */
+    private long acquireOrWait(int permits) {
+        if (permits <= 0 || permits > capacity) {
+            throw new IllegalArgumentException("permits must be in (0, " + capacity + "]");
+        }
+        while (true) {
+            long current = state.get();
+            long now = nowMillis();
+            long refilled = refill(current, now);
+            long tokens = tokens(refilled);
+            if (tokens < permits) {
+                long lack = ceilDiv((permits - tokens) * intervalMillis, rate);
+                return Math.max(1, lack - (now - timestamp(refilled)));
+            }
+            if (state.compareAndSet(current, refilled - permits)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 按流逝时间补充令牌，时间戳只前移已折算成令牌的部分，保留不足一个令牌的余量
+     */
+    private long refill(long current, long now) {
+        long timestamp = timestamp(current);
+        long tokens = tokens(current);
+        long elapsed = now - timestamp;
+        if (elapsed <= 0 || tokens >= capacity) {
+            return tokens >= capacity ? pack(Math.max(now, timestamp), capacity) : current;
+        }
+        if (elapsed >= fullRefillMillis) {
+            return pack(now, capacity);
+        }
+        long added = elapsed * rate / intervalMillis;
+        if (added == 0) {
+            return current;
+        }
+        if (tokens + added >= capacity) {
+            return pack(now, capacity);
+        }
+        return pack(timestamp + ceilDiv(added * intervalMillis, rate), tokens + added);
+    }
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ticker.getAsLong() - startNanos);
+    }
+
+    private static long pack(long timestamp, long tokens) {
+        return (timestamp << TOKEN_BITS) | tokens;
+    }
+
+    private static long timestamp(long state) {
+        return state >>> TOKEN_BITS;
+    }
+
+    private static long tokens(long state) {
+        return state & TOKEN_MASK;
+    }
+
+    /**
+     * 非负数向上取整除法，不使用x + y - 1的写法，避免y较大时溢出
+     */
+    private static long ceilDiv(long x, long y) {
+        return x / y + (x % y == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,186 @@
+package com.sparksys.commons.core.id;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: SegmentIdGenerator 测试，使用内存号段分配器及手动执行的预取线程池控制预取时机
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 20:05:33
+ */
+public class SegmentIdGeneratorTest {
+
+    private static final String TAG = "test";
+
+    @Test
+    public void noDuplicateIdsAcrossSegmentSwitches() throws Exception {
+        FakeAllocator allocator = new FakeAllocator();
+        ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        try {
+            SegmentIdGenerator generator = new SegmentIdGenerator(TAG, allocator, 100, 0.5, prefetchExecutor);
+            int idsPerThread = 20000;
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(workers.submit(() -> {
+                    start.await();
+                    long previous = 0;
+                    boolean increasing = true;
+                    for (int j = 0; j < idsPerThread; j++) {
+                        long id = generator.nextId();
+                        increasing &= id > previous;
+                        previous = id;
+                        ids.add(id);
+                    }
+                    return increasing;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                // 号段只会前移，同一线程拿到的id单调递增
+                assertTrue(future.get());
+            }
+            assertEquals(8 * idsPerThread, ids.size());
+            // 每个号段都被用完，最多多预取一个号段
+            assertTrue(allocator.calls.get() <= 8 * idsPerThread / 100 + 1);
+        } finally {
+            workers.shutdownNow();
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void prefetchFailureFallsBackToInlineAllocation() {
+        FakeAllocator allocator = new FakeAllocator();
+        ManualExecutor executor = new ManualExecutor();
+        SegmentIdGenerator generator = new SegmentIdGenerator(TAG, allocator, 10, 0.5, executor);
+        // 首个号段 [1, 10]，发到6时预取
+        for (long expected = 1; expected <= 6; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+        assertEquals(1, executor.tasks.size());
+        allocator.down = true;
+        executor.runAll();
+        for (long expected = 7; expected <= 10; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+        // 预取失败后再次发到预取位置时重试，仍然失败
+        executor.runAll();
+        assertEquals(3, allocator.calls.get());
+        assertEquals(2, allocator.failures.get());
+
+        allocator.down = false;
+        assertEquals(11, generator.nextId());
+        // 没有可用的预取号段且没有进行中的预取，发号线程同步分配（首个号段同样是同步分配）
+        assertEquals(2, allocator.inlineCalls.get());
+        assertTrue(executor.tasks.isEmpty());
+        for (long expected = 12; expected <= 20; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+    }
+
+    @Test
+    public void staleSegmentDoesNotStartEarlyPrefetch() {
+        FakeAllocator allocator = new FakeAllocator();
+        ManualExecutor executor = new ManualExecutor();
+        SegmentIdGenerator generator = new SegmentIdGenerator(TAG, allocator, 10, 0.5, executor);
+        assertEquals(1, generator.nextId());
+        SegmentIdGenerator.Segment first = generator.currentSegment();
+        for (long expected = 2; expected <= 6; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+        executor.runAll();
+        for (long expected = 7; expected <= 11; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+        assertNotSame(first, generator.currentSegment());
+        assertEquals(2, allocator.calls.get());
+
+        // 模拟在旧号段上拿到预取位置之后的id、但在切换之后才检查预取的线程
+        generator.prefetch(first);
+        assertTrue(executor.tasks.isEmpty());
+        assertEquals(2, allocator.calls.get());
+
+        // 新号段自己的预取位置照常触发
+        for (long expected = 12; expected <= 16; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+        assertEquals(1, executor.tasks.size());
+    }
+
+    /**
+     * 内存号段分配器，down为true时模拟数据库不可用
+     */
+    private static class FakeAllocator implements SegmentAllocator {
+
+        private final AtomicLong maxId = new AtomicLong();
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private final AtomicInteger inlineCalls = new AtomicInteger();
+
+        private volatile boolean down;
+
+        @Override
+        public long allocate(String tag, int step) {
+            calls.incrementAndGet();
+            if (!ManualExecutor.RUNNING.get()) {
+                inlineCalls.incrementAndGet();
+            }
+            if (down) {
+                failures.incrementAndGet();
+                throw new IllegalStateException("allocator is down");
+            }
+            return maxId.addAndGet(step);
+        }
+    }
+
+    /**
+     * 任务只在调用runAll时执行，用于控制预取完成的时机
+     */
+    private static class ManualExecutor implements Executor {
+
+        private static final ThreadLocal<Boolean> RUNNING = ThreadLocal.withInitial(() -> false);
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            RUNNING.set(true);
+            try {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+            } finally {
+                RUNNING.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.sparksys.commons.core.lock;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * description: LockRegistry 测试
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 21:31:04
+ */
+public class LockRegistryTest {
+
+    @Test
+    public void sameInstanceWhileReferenced() {
+        AtomicInteger created = new AtomicInteger();
+        LockRegistry<Object> registry = new LockRegistry<>(key -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+        Object first = registry.retain("a");
+        assertSame(first, registry.retain("a"));
+        assertSame(first, registry.get("a"));
+        assertEquals(1, created.get());
+        registry.release("a", first);
+        // 仍有一次引用
+        assertSame(first, registry.get("a"));
+        registry.release("a", first);
+        assertNull(registry.get("a"));
+        assertEquals(0, registry.size());
+        assertNotSame(first, registry.retain("a"));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    public void releaseOfStaleInstanceIgnored() {
+        LockRegistry<Object> registry = new LockRegistry<>(key -> new Object());
+        Object stale = registry.retain("a");
+        registry.release("a", stale);
+        Object current = registry.retain("a");
+        registry.release("a", stale);
+        assertSame(current, registry.get("a"));
+        registry.release("a", current);
+        assertEquals(0, registry.size());
+    }
+}
@@ -0,0 +1,128 @@
+package com.sparksys.commons.core.utils.jwt;
+
+import com.google.common.hash.Hashing;
+import com.sparksys.commons.core.context.BaseContextConstants;
+import com.sparksys.commons.core.entity.GlobalAuthUser;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * description: IdentityHeaderUtil 测试，伪造、篡改、过期及格式错误的身份信息都必须校验失败
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 19:02:44
+ */
+public class IdentityHeaderUtilTest {
+
+    private static final String SECRET = "identity-secret";
+
+    @Test
+    public void signAndVerify() {
+        String identity = IdentityHeaderUtil.sign(tokenInfo(1001L, "admin", "管理员|测试", 7L, 60000), SECRET);
+        GlobalAuthUser authUser = IdentityHeaderUtil.verify(identity, SECRET);
+        assertNotNull(authUser);
+        assertEquals(Long.valueOf(1001L), authUser.getId());
+        assertEquals("admin", authUser.getAccount());
+        // 字段值中的分隔符经过编码，不影响解析
+        assertEquals("管理员|测试", authUser.getName());
+        assertEquals(Long.valueOf(7L), authUser.getPermissionVersion());
+    }
+
+    @Test
+    public void tokenWithoutUserIdNotSigned() {
+        Claims claims = Jwts.claims().setSubject("admin").setExpiration(new Date(System.currentTimeMillis() + 60000));
+        assertNull(IdentityHeaderUtil.sign(new TokenInfo(claims), SECRET));
+    }
+
+    @Test
+    public void forgedSignatureRejected() {
+        String identity = IdentityHeaderUtil.sign(tokenInfo(1001L, "admin", "admin", 1L, 60000), SECRET);
+        // 使用其他密钥签名
+        assertNull(IdentityHeaderUtil.verify(identity, "other-secret"));
+        String payload = identity.substring(0, identity.lastIndexOf('|'));
+        assertNull(IdentityHeaderUtil.verify(payload + "|" + signature(payload, "other-secret"), SECRET));
+        assertNull(IdentityHeaderUtil.verify(payload + "|", SECRET));
+        assertNull(IdentityHeaderUtil.verify(payload, SECRET));
+    }
+
+    @Test
+    public void alteredFieldRejected() {
+        String identity = IdentityHeaderUtil.sign(tokenInfo(1001L, "admin", "admin", 1L, 60000), SECRET);
+        String[] fields = identity.split("\\|", -1);
+        for (int i = 0; i < fields.length - 1; i++) {
+            String[] altered = fields.clone();
+            altered[i] = i == 0 || i >= 3 ? altered[i] + "1" : encode("root");
+            assertNull("field " + i, IdentityHeaderUtil.verify(String.join("|", altered), SECRET));
+        }
+    }
+
+    @Test
+    public void expiredIdentityRejected() {
+        String identity = IdentityHeaderUtil.sign(tokenInfo(1001L, "admin", "admin", 1L, -1000), SECRET);
+        assertNotNull(identity);
+        assertNull(IdentityHeaderUtil.verify(identity, SECRET));
+    }
+
+    @Test
+    public void wrongFieldCountRejected() {
+        long expiration = System.currentTimeMillis() + 60000;
+        String[] payloads = {
+                "1001|" + encode("admin") + "|" + encode("admin") + "|" + expiration,
+                "1001|" + encode("admin") + "|" + encode("admin") + "|1|" + expiration + "|extra",
+                ""
+        };
+        for (String payload : payloads) {
+            assertNull(payload, IdentityHeaderUtil.verify(payload + "|" + signature(payload, SECRET), SECRET));
+        }
+    }
+
+    @Test
+    public void malformedFieldRejected() {
+        long expiration = System.currentTimeMillis() + 60000;
+        String[] payloads = {
+                "abc|" + encode("admin") + "|" + encode("admin") + "|1|" + expiration,
+                "1001|" + encode("admin") + "|" + encode("admin") + "|1|tomorrow",
+                "1001|not base64!|" + encode("admin") + "|1|" + expiration
+        };
+        for (String payload : payloads) {
+            assertNull(payload, IdentityHeaderUtil.verify(payload + "|" + signature(payload, SECRET), SECRET));
+        }
+    }
+
+    @Test
+    public void blankInputRejected() {
+        assertNull(IdentityHeaderUtil.verify(null, SECRET));
+        assertNull(IdentityHeaderUtil.verify("", SECRET));
+        String identity = IdentityHeaderUtil.sign(tokenInfo(1001L, "admin", "admin", 1L, 60000), SECRET);
+        assertNull(IdentityHeaderUtil.verify(identity, ""));
+    }
+
+    private static TokenInfo tokenInfo(Long userId, String account, String name, Long permissionVersion,
+                                       long expiresInMillis) {
+        Claims claims = Jwts.claims()
+                .setSubject(account)
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMillis));
+        claims.put(BaseContextConstants.JWT_KEY_USER_ID, userId);
+        claims.put(BaseContextConstants.JWT_KEY_NAME, name);
+        claims.put(BaseContextConstants.JWT_KEY_PERMISSION_VERSION, permissionVersion);
+        return new TokenInfo(claims);
+    }
+
+    private static String signature(String payload, String secret) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Hashing.hmacSha256(
+                secret.getBytes(StandardCharsets.UTF_8)).hashString(payload, StandardCharsets.UTF_8).asBytes());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+package com.sparksys.commons.core.utils.jwt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: JwtTokenUtil.parseToken 基准测试，不随单元测试执行，通过main方法运行
+ * <p>
+ * cold：轮流解析远多于缓存容量的不同token，几乎每次都未命中缓存，需要完整解析及HS512验签；
+ * cached：反复解析同一个token，只计算token摘要并读取缓存
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 18:36:52
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtTokenUtilBenchmark {
+
+    /**
+     * 不同token数量，为缓存容量的4倍
+     */
+    private static final int TOKEN_COUNT = 1 << 15;
+
+    private String[] tokens;
+
+    private String cachedToken;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        tokens = new String[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            tokens[i] = JwtTokenUtil.generateToken("user" + i);
+        }
+        cachedToken = JwtTokenUtil.generateToken("cached");
+        JwtTokenUtil.parseToken(cachedToken);
+    }
+
+    @Benchmark
+    public TokenInfo cold() {
+        cursor = (cursor + 1) & (TOKEN_COUNT - 1);
+        return JwtTokenUtil.parseToken(tokens[cursor]);
+    }
+
+    @Benchmark
+    public TokenInfo cached() {
+        return JwtTokenUtil.parseToken(cachedToken);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.sparksys.commons.core.utils.jwt;
+
+import com.sparksys.commons.core.constant.CoreConstant;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: JwtTokenUtil 测试，校验结果缓存不能返回已过期或被篡改的token
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 18:10:26
+ */
+public class JwtTokenUtilTest {
+
+    @Test
+    public void validTokenServedFromCache() {
+        String token = JwtTokenUtil.generateToken("cached");
+        TokenInfo tokenInfo = JwtTokenUtil.parseToken(token);
+        assertNotNull(tokenInfo);
+        assertEquals("cached", tokenInfo.getSubject());
+        assertSame(tokenInfo, JwtTokenUtil.parseToken(token));
+        assertTrue(JwtTokenUtil.validateToken(token, "cached"));
+        assertFalse(JwtTokenUtil.validateToken(token, "other"));
+    }
+
+    @Test
+    public void expiredTokenNotServedFromCache() throws InterruptedException {
+        String token = token("expiring", System.currentTimeMillis() + 1500, CoreConstant.JwtTokenConstant.JWT_SECRET);
+        TokenInfo tokenInfo = JwtTokenUtil.parseToken(token);
+        assertNotNull(tokenInfo);
+        assertSame(tokenInfo, JwtTokenUtil.parseToken(token));
+        while (System.currentTimeMillis() <= tokenInfo.getExpirationMillis()) {
+            Thread.sleep(50);
+        }
+        // 缓存项仍在缓存有效期内，但token已过期，不能再返回
+        assertNull(JwtTokenUtil.parseToken(token));
+        // 剔除后重新解析，由签名校验拒绝
+        assertNull(JwtTokenUtil.parseToken(token));
+        assertTrue(JwtTokenUtil.isTokenExpired(token));
+    }
+
+    @Test
+    public void tamperedPayloadMissesCache() {
+        String token = JwtTokenUtil.generateToken("tampered-payload");
+        TokenInfo tokenInfo = JwtTokenUtil.parseToken(token);
+        assertNotNull(tokenInfo);
+        String[] parts = token.split("\\.");
+        String forged = token("admin", System.currentTimeMillis() + 60000, CoreConstant.JwtTokenConstant.JWT_SECRET)
+                .split("\\.")[1];
+        // 替换负载、保留原签名
+        assertNull(JwtTokenUtil.parseToken(parts[0] + "." + forged + "." + parts[2]));
+        assertSame(tokenInfo, JwtTokenUtil.parseToken(token));
+    }
+
+    @Test
+    public void tamperedSignatureMissesCache() {
+        String token = JwtTokenUtil.generateToken("tampered-signature");
+        TokenInfo tokenInfo = JwtTokenUtil.parseToken(token);
+        assertNotNull(tokenInfo);
+        int index = token.lastIndexOf('.') + 10;
+        char replacement = token.charAt(index) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, index) + replacement + token.substring(index + 1);
+        assertNull(JwtTokenUtil.parseToken(tampered));
+        assertSame(tokenInfo, JwtTokenUtil.parseToken(token));
+    }
+
+    @Test
+    public void tokenSignedWithOtherKeyRejected() {
+        String token = token("other-key", System.currentTimeMillis() + 60000, "b3RoZXJzZWNyZXQ=");
+        assertNull(JwtTokenUtil.parseToken(token));
+        assertNull(JwtTokenUtil.getUserNameFromToken(token));
+        assertTrue(JwtTokenUtil.isTokenExpired(token));
+    }
+
+    private static String token(String subject, long expirationMillis, String secret) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(new Date(expirationMillis))
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+    }
+}
@@ -0,0 +1,176 @@
+package com.sparksys.commons.core.utils.limit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: TokenBucketLimiter 单元测试，时间由可控时钟推进
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 15:12:40
+ */
+public class TokenBucketLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong(TimeUnit.DAYS.toNanos(1));
+
+    private TokenBucketLimiter limiter(long rate, long period, TimeUnit unit, long capacity) {
+        return new TokenBucketLimiter(rate, period, unit, capacity, nanos::get);
+    }
+
+    private void advance(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectCapacityAboveTokenBits() {
+        limiter(1, 1, TimeUnit.SECONDS, TokenBucketLimiter.MAX_CAPACITY + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectPeriodOverflowingRefillTime() {
+        limiter(1, Long.MAX_VALUE, TimeUnit.DAYS, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectPermitsAboveCapacity() {
+        limiter(10, 1, TimeUnit.SECONDS, 10).tryAcquire(11);
+    }
+
+    @Test
+    public void maxCapacityDoesNotOverflowIntoTimestamp() {
+        TokenBucketLimiter limiter = limiter(1, 1, TimeUnit.SECONDS, TokenBucketLimiter.MAX_CAPACITY);
+        assertEquals(TokenBucketLimiter.MAX_CAPACITY, limiter.availablePermits());
+        assertTrue(limiter.tryAcquire((int) TokenBucketLimiter.MAX_CAPACITY));
+        assertEquals(0, limiter.availablePermits());
+        assertFalse(limiter.tryAcquire());
+        advance(1000);
+        assertEquals(1, limiter.availablePermits());
+        // 空闲远超补满时间后令牌数停在容量上限，不会进位到时间戳
+        advance(TimeUnit.DAYS.toMillis(365));
+        assertEquals(TokenBucketLimiter.MAX_CAPACITY, limiter.availablePermits());
+        assertTrue(limiter.tryAcquire((int) TokenBucketLimiter.MAX_CAPACITY));
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void tryAcquireWithWaitReturnsRemainingRefillTime() {
+        TokenBucketLimiter limiter = limiter(10, 1, TimeUnit.SECONDS, 10);
+        assertEquals(0, limiter.tryAcquireWithWait(10));
+        // 每100毫秒补充一个令牌
+        assertEquals(100, limiter.tryAcquireWithWait(1));
+        assertEquals(300, limiter.tryAcquireWithWait(3));
+        advance(60);
+        assertEquals(40, limiter.tryAcquireWithWait(1));
+        advance(40);
+        assertEquals(0, limiter.tryAcquireWithWait(1));
+    }
+
+    @Test
+    public void largeRateDoesNotOverflow() {
+        TokenBucketLimiter limiter = limiter(Long.MAX_VALUE, 1, TimeUnit.DAYS, 100);
+        assertTrue(limiter.tryAcquire(100));
+        assertFalse(limiter.tryAcquire());
+        advance(1);
+        assertEquals(100, limiter.availablePermits());
+    }
+
+    @Test
+    public void refillByElapsedTime() {
+        TokenBucketLimiter limiter = limiter(10, 1, TimeUnit.SECONDS, 10);
+        assertTrue(limiter.tryAcquire(10));
+        assertFalse(limiter.tryAcquire());
+        advance(99);
+        assertFalse(limiter.tryAcquire());
+        advance(1);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        advance(1000);
+        assertEquals(10, limiter.availablePermits());
+    }
+
+    @Test
+    public void keepFractionalTokenBetweenRefills() {
+        TokenBucketLimiter limiter = limiter(10, 1, TimeUnit.SECONDS, 10);
+        assertTrue(limiter.tryAcquire(10));
+        // 250ms补充2个令牌，剩余50ms计入下一个令牌
+        advance(250);
+        assertTrue(limiter.tryAcquire(2));
+        assertFalse(limiter.tryAcquire());
+        advance(50);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void slowRateDoesNotLoseTokens() {
+        TokenBucketLimiter limiter = limiter(1, 3, TimeUnit.SECONDS, 5);
+        assertTrue(limiter.tryAcquire(5));
+        long granted = 0;
+        for (int i = 0; i < 30; i++) {
+            advance(1000);
+            if (limiter.tryAcquire()) {
+                granted++;
+            }
+        }
+        assertEquals(10, granted);
+    }
+
+    @Test
+    public void timedAcquireGivesUpWhenRefillExceedsTimeout() throws InterruptedException {
+        TokenBucketLimiter limiter = limiter(1, 1, TimeUnit.HOURS, 1);
+        assertTrue(limiter.tryAcquire());
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire(1, 50, TimeUnit.MILLISECONDS));
+        // 预计等待时间超过超时时间时直接返回，不会先挂起到超时
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void concurrentAcquireNeverOverGrants() throws Exception {
+        int threads = 8;
+        int capacity = 10_000;
+        TokenBucketLimiter limiter = limiter(capacity, 1, TimeUnit.SECONDS, capacity);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 3; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Long>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        long granted = 0;
+                        for (int j = 0; j < capacity; j++) {
+                            if (limiter.tryAcquire()) {
+                                granted++;
+                            }
+                        }
+                        return granted;
+                    }));
+                }
+                start.countDown();
+                long granted = 0;
+                for (Future<Long> future : futures) {
+                    granted += future.get();
+                }
+                // 时钟不动时所有线程合计恰好拿到一桶令牌
+                assertEquals(capacity, granted);
+                assertEquals(0, limiter.availablePermits());
+                advance(1000);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
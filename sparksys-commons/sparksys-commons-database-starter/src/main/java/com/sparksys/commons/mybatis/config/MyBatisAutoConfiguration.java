@@ -2,9 +2,16 @@ package com.sparksys.commons.mybatis.config;
 
 import com.baomidou.mybatisplus.extension.plugins.PaginationInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.pagination.optimize.JsqlParserCountOptimize;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sparksys.commons.core.id.IdGenerator;
+import com.sparksys.commons.core.id.SegmentAllocator;
+import com.sparksys.commons.core.id.SegmentIdGenerator;
+import com.sparksys.commons.core.id.SnowflakeIdGenerator;
 import com.sparksys.commons.mybatis.hander.MetaDataHandler;
+import com.sparksys.commons.mybatis.id.JdbcSegmentAllocator;
 import com.sparksys.commons.mybatis.properties.DataProperties;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -12,6 +19,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * description: mybatis全局配置
  *
@@ -34,7 +49,27 @@ public class MyBatisAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public MetaDataHandler metaDateHandler(DataProperties dataProperties) {
-        return new MetaDataHandler(dataProperties.getWorkerId(), dataProperties.getDataCenterId());
+    public MetaDataHandler metaDateHandler(DataProperties dataProperties, ObjectProvider<IdGenerator> idGenerator,
+                                           ObjectProvider<SegmentAllocator> segmentAllocator,
+                                           ObjectProvider<DataSource> dataSource) {
+        // 存在主键生成器（如zookeeper分配机器id）时优先使用，否则使用配置的固定机器id
+        IdGenerator defaultIdGenerator = idGenerator.getIfUnique(() -> new SnowflakeIdGenerator(
+                dataProperties.getWorkerId(), dataProperties.getDataCenterId()));
+        DataProperties.Segment segment = dataProperties.getSegment();
+        if (segment.getTables().isEmpty()) {
+            return new MetaDataHandler(defaultIdGenerator);
+        }
+        // 未提供号段分配器（如redis）时使用数据库号段表
+        SegmentAllocator allocator = segmentAllocator.getIfUnique(() -> new JdbcSegmentAllocator(
+                dataSource.getObject(), segment.getTable()));
+        ExecutorService prefetchExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("id-segment-%d")
+                .setDaemon(true).build());
+        Map<String, IdGenerator> tableIdGenerators = new HashMap<>(segment.getTables().size());
+        for (String table : segment.getTables()) {
+            tableIdGenerators.put(table, new SegmentIdGenerator(table, allocator, segment.getStep(),
+                    segment.getPrefetchRatio(), prefetchExecutor));
+        }
+        return new MetaDataHandler(defaultIdGenerator, tableIdGenerators);
     }
 }
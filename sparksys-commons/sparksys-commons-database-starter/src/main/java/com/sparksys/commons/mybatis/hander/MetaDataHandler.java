@@ -1,13 +1,13 @@
 package com.sparksys.commons.mybatis.hander;
 
-import cn.hutool.core.lang.Snowflake;
-import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.ReflectUtil;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.core.metadata.TableInfo;
 import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.sparksys.commons.core.context.BaseContextHandler;
+import com.sparksys.commons.core.id.IdGenerator;
+import com.sparksys.commons.core.id.SnowflakeIdGenerator;
 import com.sparksys.commons.mybatis.entity.Entity;
 import com.sparksys.commons.mybatis.entity.SuperEntity;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +15,9 @@ import org.apache.ibatis.reflection.MetaObject;
 
 import java.lang.reflect.Field;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * description: mybatis-plus自动注入处理器
@@ -25,13 +28,26 @@ import java.time.LocalDateTime;
 @Slf4j
 public class MetaDataHandler implements MetaObjectHandler {
 
-    private final long workerId;
+    private final IdGenerator idGenerator;
 
-    private final long dataCenterId;
+    /**
+     * 表名 -> 单独指定的id生成器（如号段模式）
+     */
+    private final Map<String, IdGenerator> tableIdGenerators;
+
+    private final Map<Class<?>, IdGenerator> classIdGenerators = new ConcurrentHashMap<>();
 
     public MetaDataHandler(long workerId, long dataCenterId) {
-        this.workerId = workerId;
-        this.dataCenterId = dataCenterId;
+        this(new SnowflakeIdGenerator(workerId, dataCenterId));
+    }
+
+    public MetaDataHandler(IdGenerator idGenerator) {
+        this(idGenerator, Collections.emptyMap());
+    }
+
+    public MetaDataHandler(IdGenerator idGenerator, Map<String, IdGenerator> tableIdGenerators) {
+        this.idGenerator = idGenerator;
+        this.tableIdGenerators = tableIdGenerators;
     }
 
     @Override
@@ -60,8 +76,7 @@ public class MetaDataHandler implements MetaObjectHandler {
         }
 
         if (flag) {
-            Snowflake snowflake = IdUtil.getSnowflake(this.workerId, this.dataCenterId);
-            Long id = snowflake.nextId();
+            Long id = getIdGenerator(metaObject).nextId();
             if (metaObject.hasGetter(SuperEntity.FIELD_ID)) {
                 idVal = "java.lang.String".equals(metaObject.getGetterType(SuperEntity.FIELD_ID).getName()) ? String.valueOf(id) : id;
                 this.setFieldValByName("id", idVal, metaObject);
@@ -83,6 +98,18 @@ public class MetaDataHandler implements MetaObjectHandler {
         }
     }
 
+    private IdGenerator getIdGenerator(MetaObject metaObject) {
+        if (tableIdGenerators.isEmpty()) {
+            return idGenerator;
+        }
+        Class<?> entityClass = metaObject.hasGetter("MP_OPTLOCK_ET_ORIGINAL") ?
+                metaObject.getValue("MP_OPTLOCK_ET_ORIGINAL").getClass() : metaObject.getOriginalObject().getClass();
+        return classIdGenerators.computeIfAbsent(entityClass, clazz -> {
+            TableInfo tableInfo = TableInfoHelper.getTableInfo(clazz);
+            return tableInfo == null ? idGenerator : tableIdGenerators.getOrDefault(tableInfo.getTableName(), idGenerator);
+        });
+    }
+
     private void update(MetaObject metaObject, Entity entity) {
         if (entity.getUpdateTime() == null) {
             this.setFieldValByName(Entity.UPDATE_TIME, LocalDateTime.now(), metaObject);
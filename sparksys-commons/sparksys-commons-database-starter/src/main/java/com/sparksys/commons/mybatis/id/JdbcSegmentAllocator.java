@@ -0,0 +1,89 @@
+package com.sparksys.commons.mybatis.id;
+
+import com.sparksys.commons.core.id.SegmentAllocator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * description: 基于数据库的号段分配器（MySQL）
+ * 通过 max_id = LAST_INSERT_ID(max_id + step) 在同一连接上原子地更新并读取号段。
+ * 使用独立连接而不是当前事务的连接，业务事务回滚不会回滚已发出的号段
+ *
+ * @author zhouxinlei
+ * @date 2020-07-12 10:25:37
+ */
+public class JdbcSegmentAllocator implements SegmentAllocator {
+
+    private final DataSource dataSource;
+
+    private final String updateSql;
+
+    private final String insertSql;
+
+    public JdbcSegmentAllocator(DataSource dataSource, String table) {
+        this.dataSource = dataSource;
+        this.updateSql = "UPDATE " + table + " SET max_id = LAST_INSERT_ID(max_id + ?), update_time = NOW() "
+                + "WHERE biz_tag = ?";
+        this.insertSql = "INSERT IGNORE INTO " + table + " (biz_tag, max_id, update_time) VALUES (?, 0, NOW())";
+    }
+
+    @Override
+    public long allocate(String tag, int step) {
+        try (Connection connection = dataSource.getConnection()) {
+            Long maxId;
+            try {
+                maxId = increase(connection, tag, step);
+                if (maxId == null) {
+                    // 业务标识不存在时初始化后重试
+                    try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+                        insert.setString(1, tag);
+                        insert.executeUpdate();
+                    }
+                    maxId = increase(connection, tag, step);
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                // 非自动提交的连接归还连接池前回滚，避免未提交的更新及行锁留在连接上
+                rollback(connection, e);
+                throw e;
+            }
+            if (maxId == null) {
+                throw new IllegalStateException("allocate id segment failed, tag:" + tag);
+            }
+            return maxId;
+        } catch (SQLException e) {
+            throw new IllegalStateException("allocate id segment failed, tag:" + tag, e);
+        }
+    }
+
+    private static void rollback(Connection connection, SQLException cause) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private Long increase(Connection connection, String tag, int step) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+            update.setInt(1, step);
+            update.setString(2, tag);
+            if (update.executeUpdate() == 0) {
+                return null;
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+             ResultSet resultSet = select.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
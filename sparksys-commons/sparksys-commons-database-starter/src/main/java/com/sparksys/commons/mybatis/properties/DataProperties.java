@@ -3,6 +3,9 @@ package com.sparksys.commons.mybatis.properties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * description：数据源配置类
  *
@@ -19,4 +22,38 @@ public class DataProperties {
     private long dataCenterId;
 
     private String mapperScan;
+
+    /**
+     * 号段模式id配置
+     */
+    private Segment segment = new Segment();
+
+    @Data
+    public static class Segment {
+
+        /**
+         * 使用号段模式生成id的表，其余表仍使用雪花算法
+         */
+        private List<String> tables = new ArrayList<>();
+
+        /**
+         * 号段长度
+         */
+        private int step = 1000;
+
+        /**
+         * 当前号段使用比例达到该值时预取下一号段
+         */
+        private double prefetchRatio = 0.15;
+
+        /**
+         * 号段分配方式：jdbc（默认，号段表）或 redis
+         */
+        private String allocator = "jdbc";
+
+        /**
+         * 号段表名
+         */
+        private String table = "id_segment";
+    }
 }
@@ -0,0 +1,20 @@
+package com.sparksys.commons.redis.annotation;
+
+/**
+ * description: 注解缓存使用的缓存实现
+ *
+ * @author zhouxinlei
+ * @date 2020-07-08 09:55:03
+ */
+public enum CacheType {
+
+    /**
+     * redis缓存（开启二级缓存时为二级缓存）
+     */
+    REDIS,
+
+    /**
+     * 本地缓存
+     */
+    LOCAL
+}
@@ -0,0 +1,44 @@
+package com.sparksys.commons.redis.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * description: 方法执行期间持有分布式锁，获取锁失败时抛出业务异常
+ *
+ * @author zhouxinlei
+ * @date 2020-07-10 14:40:05
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DistributedLocked {
+
+    /**
+     * key前缀，完整key: lock:{prefix}:{key}
+     */
+    String prefix() default "";
+
+    /**
+     * SpEL表达式，如 #orderId，为空时只使用前缀
+     */
+    String key() default "";
+
+    /**
+     * 等待时间（单位：秒）
+     */
+    int waitTime() default 3;
+
+    /**
+     * 租期（单位：秒），-1表示持有期间自动续期
+     */
+    long leaseTime() default -1;
+
+    /**
+     * 获取锁失败时的提示信息
+     */
+    String message() default "操作过于频繁，请稍后再试";
+}
@@ -0,0 +1,20 @@
+package com.sparksys.commons.redis.annotation;
+
+/**
+ * description: 限流算法
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 09:13:25
+ */
+public enum LimitAlgorithm {
+
+    /**
+     * 令牌桶，允许capacity以内的突发流量，按rate/period匀速补充
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * 滑动窗口，任意period时间窗口内最多rate次
+     */
+    SLIDING_WINDOW
+}
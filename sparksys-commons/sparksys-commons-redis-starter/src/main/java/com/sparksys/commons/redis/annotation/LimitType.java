@@ -0,0 +1,25 @@
+package com.sparksys.commons.redis.annotation;
+
+/**
+ * description: 限流维度
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 09:12:40
+ */
+public enum LimitType {
+
+    /**
+     * 按接口限流，所有调用方共享配额
+     */
+    API,
+
+    /**
+     * 按客户端IP限流
+     */
+    IP,
+
+    /**
+     * 按登录用户限流，未登录时退化为按IP限流
+     */
+    USER
+}
@@ -0,0 +1,65 @@
+package com.sparksys.commons.redis.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: 接口限流注解，基于redis实现集群级别限流，每次请求一次redis往返
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 09:15:02
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+
+    /**
+     * 限流资源名，为空时取 类名.方法名
+     */
+    String key() default "";
+
+    /**
+     * 限流维度
+     */
+    LimitType limitType() default LimitType.API;
+
+    /**
+     * 限流算法
+     */
+    LimitAlgorithm algorithm() default LimitAlgorithm.TOKEN_BUCKET;
+
+    /**
+     * 每个周期允许的请求数（令牌桶为补充速率，滑动窗口为窗口内上限）
+     */
+    long rate();
+
+    /**
+     * 令牌桶容量，小于等于0时与rate相同；滑动窗口忽略
+     */
+    long capacity() default 0;
+
+    /**
+     * 周期
+     */
+    long period() default 1;
+
+    /**
+     * 周期单位
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * 每次请求消耗的许可数
+     */
+    int permits() default 1;
+
+    /**
+     * 单节点每个周期允许的请求数，大于0时先经过本地令牌桶，本地拒绝的请求不再访问redis
+     */
+    long localRate() default 0;
+}
@@ -0,0 +1,44 @@
+package com.sparksys.commons.redis.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * description: 清除缓存，存在事务时在事务提交后清除
+ *
+ * @author zhouxinlei
+ * @date 2020-07-08 10:03:15
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SparkCacheEvict {
+
+    /**
+     * key前缀，如 CacheKey.MENU
+     */
+    String prefix() default "";
+
+    /**
+     * SpEL表达式，可返回单个值、集合或数组，多个key批量清除，为空时只使用前缀
+     */
+    String[] keys() default {};
+
+    /**
+     * SpEL条件，可使用 #result，满足时才清除
+     */
+    String condition() default "";
+
+    /**
+     * 是否在方法执行前清除
+     */
+    boolean beforeInvocation() default false;
+
+    /**
+     * 缓存实现
+     */
+    CacheType type() default CacheType.REDIS;
+}
@@ -0,0 +1,54 @@
+package com.sparksys.commons.redis.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * description: 缓存方法返回值，缓存命中时不执行方法
+ *
+ * @author zhouxinlei
+ * @date 2020-07-08 09:58:41
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SparkCacheable {
+
+    /**
+     * key前缀，如 CacheKey.MENU
+     */
+    String prefix() default "";
+
+    /**
+     * SpEL表达式，如 #id，为空时只使用前缀
+     */
+    String key() default "";
+
+    /**
+     * 过期时间（单位：秒）
+     */
+    long expireTime() default 60;
+
+    /**
+     * SpEL条件，满足时才使用缓存
+     */
+    String condition() default "";
+
+    /**
+     * SpEL条件，可使用 #result，满足时不缓存返回值
+     */
+    String unless() default "";
+
+    /**
+     * 返回null时是否缓存空值占位，仅redis缓存有效
+     */
+    boolean cacheNull() default false;
+
+    /**
+     * 缓存实现
+     */
+    CacheType type() default CacheType.REDIS;
+}
@@ -0,0 +1,162 @@
+package com.sparksys.commons.redis.aspect;
+
+import com.sparksys.commons.core.support.SparkSysExceptionAssert;
+import com.sparksys.commons.core.utils.common.SpelExpressionEvaluator;
+import com.sparksys.commons.redis.constant.CacheKey;
+import com.sparksys.commons.redis.script.RedisScriptRegistry;
+import com.sparksys.commons.web.annotation.ApiIdempotent;
+import com.sparksys.commons.web.utils.HttpUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: 接口幂等切面，处理标注了{@link ApiIdempotent}的接口
+ * 一次lua调用原子地完成 token校验消费/幂等key抢占、处理中判断及结果读取，重复请求直接返回首次请求的结果
+ *
+ * @author zhouxinlei
+ * @date 2020-07-13 09:48:20
+ */
+@Aspect
+@Component
+@ConditionalOnClass(name = "com.sparksys.commons.web.utils.HttpUtils")
+@Slf4j
+public class ApiIdempotentAspect {
+
+    private static final String PROCESSING = "\u0000idempotent:processing";
+
+    private static final String RESULT_PREFIX = "\u0000idempotent:result:";
+
+    private static final byte[] RESULT_PREFIX_BYTES = RESULT_PREFIX.getBytes(StandardCharsets.UTF_8);
+
+    private static final long MISSING = 0;
+
+    private static final long ACQUIRED = 1;
+
+    private static final long IN_PROGRESS = 2;
+
+    /**
+     * 返回 {0} token不存在，{1} 抢占成功（已标记为处理中），{2} 处理中，{3, 结果} 已处理完成
+     */
+    private static final String IDEMPOTENT_SCRIPT = "idempotent";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisScriptRegistry redisScriptRegistry;
+
+    private final SpelExpressionEvaluator evaluator = new SpelExpressionEvaluator();
+
+    public ApiIdempotentAspect(RedisTemplate<String, Object> redisTemplate, RedisScriptRegistry redisScriptRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.redisScriptRegistry = redisScriptRegistry;
+    }
+
+    @Around("@annotation(apiIdempotent)")
+    public Object idempotent(ProceedingJoinPoint joinPoint, ApiIdempotent apiIdempotent) throws Throwable {
+        boolean tokenMode = !StringUtils.hasText(apiIdempotent.key());
+        String key = tokenMode ? getTokenKey(apiIdempotent) : buildKey(joinPoint, apiIdempotent);
+        if (!StringUtils.hasText(key)) {
+            SparkSysExceptionAssert.businessFail("缺少幂等token");
+        }
+        List<Object> state = redisScriptRegistry.execute(IDEMPOTENT_SCRIPT, ReturnType.MULTI,
+                Collections.singletonList(key), PROCESSING, RESULT_PREFIX,
+                TimeUnit.SECONDS.toMillis(apiIdempotent.expireTime()), tokenMode ? "1" : "0");
+        long status = state == null || state.isEmpty() ? MISSING : (Long) state.get(0);
+        if (status == MISSING) {
+            SparkSysExceptionAssert.businessFail("token已失效，请勿重复提交");
+        } else if (status == IN_PROGRESS) {
+            SparkSysExceptionAssert.businessFail("请求处理中，请勿重复提交");
+        } else if (status != ACQUIRED) {
+            return redisTemplate.getValueSerializer().deserialize((byte[]) state.get(1));
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            release(key, tokenMode, apiIdempotent.expireTime());
+            throw e;
+        }
+        saveResult(key, result, apiIdempotent.expireTime());
+        return result;
+    }
+
+    /**
+     * 保存首次请求结果，供重复请求直接返回
+     */
+    @SuppressWarnings("unchecked")
+    private void saveResult(String key, Object result, long expireTime) {
+        try {
+            byte[] payload = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(result);
+            int payloadLength = payload == null ? 0 : payload.length;
+            byte[] value = new byte[RESULT_PREFIX_BYTES.length + payloadLength];
+            System.arraycopy(RESULT_PREFIX_BYTES, 0, value, 0, RESULT_PREFIX_BYTES.length);
+            if (payloadLength > 0) {
+                System.arraycopy(payload, 0, value, RESULT_PREFIX_BYTES.length, payloadLength);
+            }
+            byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(rawKey, value,
+                    Expiration.seconds(expireTime), RedisStringCommands.SetOption.upsert()));
+        } catch (Exception e) {
+            log.error("save idempotent result failed, key:{}, {}", key, e.getMessage());
+            redisTemplate.delete(key);
+        }
+    }
+
+    /**
+     * 方法执行失败时释放，允许客户端使用同一token或幂等key重试
+     */
+    private void release(String key, boolean tokenMode, long expireTime) {
+        try {
+            if (tokenMode) {
+                redisTemplate.opsForValue().set(key, key, expireTime, TimeUnit.SECONDS);
+            } else {
+                redisTemplate.delete(key);
+            }
+        } catch (Exception e) {
+            log.error("release idempotent key failed, key:{}, {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取客户端提交的token并拼接token前缀，客户端的值不能直接作为key，否则可以借此覆盖任意key
+     */
+    private String getTokenKey(ApiIdempotent apiIdempotent) {
+        HttpServletRequest request = HttpUtils.getRequest();
+        String token = "param".equals(apiIdempotent.value()) ? request.getParameter(apiIdempotent.tokenName())
+                : request.getHeader(apiIdempotent.tokenName());
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        return CacheKey.buildKey(CacheKey.IDEMPOTENT_TOKEN, token);
+    }
+
+    private String buildKey(ProceedingJoinPoint joinPoint, ApiIdempotent apiIdempotent) {
+        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
+        EvaluationContext context = evaluator.createContext(methodSignature.getMethod(), joinPoint.getArgs(),
+                joinPoint.getTarget());
+        Object keyValue = evaluator.getValue(apiIdempotent.key(), context, Object.class);
+        if (keyValue == null) {
+            return null;
+        }
+        return CacheKey.buildKey(CacheKey.IDEMPOTENT, methodSignature.getDeclaringType().getSimpleName()
+                .concat(".").concat(methodSignature.getName()), keyValue);
+    }
+}
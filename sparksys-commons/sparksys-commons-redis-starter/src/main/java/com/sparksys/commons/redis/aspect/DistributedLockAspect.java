@@ -0,0 +1,67 @@
+package com.sparksys.commons.redis.aspect;
+
+import com.sparksys.commons.core.lock.DistributedLock;
+import com.sparksys.commons.core.support.SparkSysExceptionAssert;
+import com.sparksys.commons.core.utils.common.SpelExpressionEvaluator;
+import com.sparksys.commons.redis.annotation.DistributedLocked;
+import com.sparksys.commons.redis.constant.CacheKey;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * description: 分布式锁注解切面
+ *
+ * @author zhouxinlei
+ * @date 2020-07-10 14:52:31
+ */
+@Aspect
+@Component
+public class DistributedLockAspect {
+
+    private final ObjectProvider<DistributedLock> distributedLockProvider;
+
+    private final SpelExpressionEvaluator evaluator = new SpelExpressionEvaluator();
+
+    public DistributedLockAspect(ObjectProvider<DistributedLock> distributedLockProvider) {
+        this.distributedLockProvider = distributedLockProvider;
+    }
+
+    @Around("@annotation(distributedLocked)")
+    public Object lock(ProceedingJoinPoint joinPoint, DistributedLocked distributedLocked) throws Throwable {
+        DistributedLock distributedLock = distributedLockProvider.getIfAvailable();
+        if (distributedLock == null) {
+            throw new IllegalStateException("no DistributedLock bean, please configure redisson");
+        }
+        String key = buildKey(joinPoint, distributedLocked);
+        if (!distributedLock.lock(key, distributedLocked.waitTime(), distributedLocked.leaseTime())) {
+            SparkSysExceptionAssert.businessFail(distributedLocked.message());
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            distributedLock.releaseLock(key);
+        }
+    }
+
+    private String buildKey(ProceedingJoinPoint joinPoint, DistributedLocked distributedLocked) {
+        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
+        String prefix = distributedLocked.prefix();
+        if (!StringUtils.hasText(prefix)) {
+            prefix = methodSignature.getDeclaringType().getSimpleName().concat(".")
+                    .concat(methodSignature.getName());
+        }
+        if (!StringUtils.hasText(distributedLocked.key())) {
+            return CacheKey.buildKey(CacheKey.LOCK, prefix);
+        }
+        EvaluationContext context = evaluator.createContext(methodSignature.getMethod(), joinPoint.getArgs(),
+                joinPoint.getTarget());
+        Object keyValue = evaluator.getValue(distributedLocked.key(), context, Object.class);
+        return CacheKey.buildKey(CacheKey.LOCK, prefix, keyValue);
+    }
+}
@@ -0,0 +1,176 @@
+package com.sparksys.commons.redis.aspect;
+
+import com.sparksys.commons.core.utils.common.SpelExpressionEvaluator;
+import com.sparksys.commons.redis.annotation.CacheType;
+import com.sparksys.commons.redis.annotation.SparkCacheEvict;
+import com.sparksys.commons.redis.annotation.SparkCacheable;
+import com.sparksys.commons.redis.cache.CacheLoadException;
+import com.sparksys.commons.redis.cache.CacheProviderService;
+import com.sparksys.commons.redis.cache.LocalCache;
+import com.sparksys.commons.redis.constant.CacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * description: 注解缓存切面
+ *
+ * @author zhouxinlei
+ * @date 2020-07-08 10:12:56
+ */
+@Aspect
+@Component
+@Slf4j
+public class SparkCacheAspect {
+
+    private final CacheProviderService cacheProviderService;
+
+    private final LocalCache localCache;
+
+    private final SpelExpressionEvaluator evaluator = new SpelExpressionEvaluator();
+
+    public SparkCacheAspect(CacheProviderService cacheProviderService, LocalCache localCache) {
+        this.cacheProviderService = cacheProviderService;
+        this.localCache = localCache;
+    }
+
+    @Around("@annotation(sparkCacheable)")
+    public Object cacheable(ProceedingJoinPoint joinPoint, SparkCacheable sparkCacheable) throws Throwable {
+        EvaluationContext context = createContext(joinPoint);
+        if (!evaluator.getCondition(sparkCacheable.condition(), context, true)) {
+            return joinPoint.proceed();
+        }
+        String key = buildKey(sparkCacheable.prefix(), sparkCacheable.key(), context);
+        if (StringUtils.hasText(sparkCacheable.unless())) {
+            return cacheableUnless(joinPoint, sparkCacheable, key, context);
+        }
+        //方法异常不缓存，包装后穿过缓存组件，合并加载的等待者同样收到异常，最后还原为原始异常抛出
+        Function<String, Object> loader = k -> {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                throw new CacheLoadException(e);
+            }
+        };
+        try {
+            if (sparkCacheable.type() == CacheType.LOCAL) {
+                return localCache.get(key, loader, key, sparkCacheable.expireTime());
+            } else if (sparkCacheable.cacheNull()) {
+                return cacheProviderService.getAllowNull(key, loader, key, sparkCacheable.expireTime());
+            }
+            return cacheProviderService.get(key, loader, key, sparkCacheable.expireTime());
+        } catch (CacheLoadException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object cacheableUnless(ProceedingJoinPoint joinPoint, SparkCacheable sparkCacheable, String key,
+                                   EvaluationContext context) throws Throwable {
+        Object result = sparkCacheable.type() == CacheType.LOCAL ? localCache.get(key)
+                : cacheProviderService.get(key);
+        if (result != null) {
+            return result;
+        }
+        result = joinPoint.proceed();
+        evaluator.setResult(context, result);
+        if (result != null && !evaluator.getCondition(sparkCacheable.unless(), context, false)) {
+            if (sparkCacheable.type() == CacheType.LOCAL) {
+                localCache.set(key, result, sparkCacheable.expireTime());
+            } else {
+                cacheProviderService.set(key, result, sparkCacheable.expireTime());
+            }
+        }
+        return result;
+    }
+
+    @Around("@annotation(sparkCacheEvict)")
+    public Object cacheEvict(ProceedingJoinPoint joinPoint, SparkCacheEvict sparkCacheEvict) throws Throwable {
+        EvaluationContext context = createContext(joinPoint);
+        if (sparkCacheEvict.beforeInvocation()) {
+            if (evaluator.getCondition(sparkCacheEvict.condition(), context, true)) {
+                evict(sparkCacheEvict.type(), buildKeys(sparkCacheEvict, context));
+            }
+            return joinPoint.proceed();
+        }
+        Object result = joinPoint.proceed();
+        evaluator.setResult(context, result);
+        if (!evaluator.getCondition(sparkCacheEvict.condition(), context, true)) {
+            return result;
+        }
+        List<String> keys = buildKeys(sparkCacheEvict, context);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(sparkCacheEvict.type(), keys);
+                }
+            });
+        } else {
+            evict(sparkCacheEvict.type(), keys);
+        }
+        return result;
+    }
+
+    private void evict(CacheType cacheType, List<String> keys) {
+        try {
+            if (cacheType == CacheType.LOCAL) {
+                keys.forEach(localCache::remove);
+            } else {
+                cacheProviderService.multiRemove(keys);
+            }
+        } catch (Exception e) {
+            log.error("cache evict failed, keys:{}, {}", keys, e.getMessage());
+        }
+    }
+
+    private EvaluationContext createContext(ProceedingJoinPoint joinPoint) {
+        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
+        return evaluator.createContext(methodSignature.getMethod(), joinPoint.getArgs(), joinPoint.getTarget());
+    }
+
+    private String buildKey(String prefix, String keyExpression, EvaluationContext context) {
+        if (!StringUtils.hasText(keyExpression)) {
+            return prefix;
+        }
+        Object keyValue = evaluator.getValue(keyExpression, context, Object.class);
+        return StringUtils.hasText(prefix) ? CacheKey.buildKey(prefix, keyValue) : String.valueOf(keyValue);
+    }
+
+    private List<String> buildKeys(SparkCacheEvict sparkCacheEvict, EvaluationContext context) {
+        List<String> keys = new ArrayList<>();
+        String prefix = sparkCacheEvict.prefix();
+        if (sparkCacheEvict.keys().length == 0) {
+            keys.add(prefix);
+            return keys;
+        }
+        for (String keyExpression : sparkCacheEvict.keys()) {
+            Object keyValue = evaluator.getValue(keyExpression, context, Object.class);
+            Collection<?> keyValues;
+            if (keyValue instanceof Collection) {
+                keyValues = (Collection<?>) keyValue;
+            } else if (keyValue != null && keyValue.getClass().isArray()) {
+                keyValues = CollectionUtils.arrayToList(keyValue);
+            } else {
+                keyValues = Collections.singletonList(keyValue);
+            }
+            for (Object value : keyValues) {
+                keys.add(StringUtils.hasText(prefix) ? CacheKey.buildKey(prefix, value) : String.valueOf(value));
+            }
+        }
+        return keys;
+    }
+}
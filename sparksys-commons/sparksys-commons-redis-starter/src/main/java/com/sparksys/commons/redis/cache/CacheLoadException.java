@@ -0,0 +1,17 @@
+package com.sparksys.commons.redis.cache;
+
+/**
+ * description: 加载函数执行异常，缓存组件不缓存结果也不吞掉该异常，
+ * 合并加载的等待者同样收到该异常，调用方通过{@link #getCause()}取得原始异常
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 14:20:37
+ */
+public class CacheLoadException extends RuntimeException {
+
+    private static final long serialVersionUID = 3504931850315243826L;
+
+    public CacheLoadException(Throwable cause) {
+        super(cause.getMessage(), cause);
+    }
+}
@@ -1,5 +1,9 @@
 package com.sparksys.commons.redis.cache;
 
+import org.springframework.data.redis.core.Cursor;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -21,6 +25,15 @@ public interface CacheProviderService {
      */
     <T> T get(String key);
 
+    /**
+     * 按指定读一致性查询缓存，未指定时使用sparksys.cache.read-consistency
+     *
+     * @param key         缓存键 不可为空
+     * @param consistency 读一致性，STRONG读主节点，EVENTUAL优先读从节点
+     * @return T
+     */
+    <T> T get(String key, ReadConsistency consistency);
+
     /**
      * 查询缓存
      *
@@ -80,6 +93,79 @@ public interface CacheProviderService {
      **/
     <T> void set(String key, T obj, Long expireTime);
 
+    /**
+     * 查询缓存，加载函数返回null时缓存空值占位，占位有效期内不再调用加载函数
+     *
+     * @param key      缓存键 不可为空
+     * @param function 如没有缓存，调用该callable函数返回对象 可为空
+     * @return T
+     */
+    <T> T getAllowNull(String key, Function<String, T> function);
+
+    /**
+     * 查询缓存，加载函数返回null时缓存空值占位，占位有效期内不再调用加载函数
+     *
+     * @param key        缓存键 不可为空
+     * @param function   如没有缓存，调用该callable函数返回对象 可为空
+     * @param funcParam  function函数的调用参数
+     * @param expireTime 过期时间（单位：秒） 可为空，空值占位使用单独的较短过期时间
+     * @return T
+     */
+    <T, M> T getAllowNull(String key, Function<M, T> function, M funcParam, Long expireTime);
+
+    /**
+     * 查询缓存，接近过期时按XFetch概率在后台提前刷新，读取方不等待刷新
+     *
+     * @param key      缓存键 不可为空
+     * @param function 如没有缓存，调用该callable函数返回对象 不可为空
+     * @return T
+     */
+    <T> T getRefreshAhead(String key, Function<String, T> function);
+
+    /**
+     * 查询缓存，接近过期时按XFetch概率在后台提前刷新，读取方不等待刷新
+     *
+     * @param key        缓存键 不可为空
+     * @param function   如没有缓存，调用该callable函数返回对象 不可为空
+     * @param funcParam  function函数的调用参数
+     * @param expireTime 逻辑过期时间（单位：秒） 可为空
+     * @return T
+     */
+    <T, M> T getRefreshAhead(String key, Function<M, T> function, M funcParam, Long expireTime);
+
+    /**
+     * 批量查询缓存
+     *
+     * @param keys 缓存键集合
+     * @return Map<String, T> 命中的缓存，未命中的key不包含在内
+     */
+    <T> Map<String, T> multiGet(Collection<String> keys);
+
+    /**
+     * 按指定读一致性批量查询缓存
+     *
+     * @param keys        缓存键集合
+     * @param consistency 读一致性，STRONG读主节点，EVENTUAL优先读从节点
+     * @return Map<String, T> 命中的缓存，未命中的key不包含在内
+     */
+    <T> Map<String, T> multiGet(Collection<String> keys, ReadConsistency consistency);
+
+    /**
+     * 批量设置缓存键值
+     *
+     * @param values     缓存键值
+     * @param expireTime 过期时间（单位：秒） 可为空
+     */
+    <T> void multiSet(Map<String, T> values, Long expireTime);
+
+    /**
+     * 批量设置缓存键值
+     *
+     * @param values      缓存键值
+     * @param expireTimes 每个缓存键的过期时间（单位：秒），未指定的使用默认过期时间
+     */
+    <T> void multiSet(Map<String, T> values, Map<String, Long> expireTimes);
+
     /**
      * 设置缓存有效期
      *
@@ -117,6 +203,13 @@ public interface CacheProviderService {
      **/
     void remove(String key);
 
+    /**
+     * 批量移除缓存
+     *
+     * @param keys 缓存键集合
+     */
+    void multiRemove(Collection<String> keys);
+
     /**
      * 是否存在缓存
      *
@@ -156,6 +249,39 @@ public interface CacheProviderService {
      */
     <T> T get(String key, Long score);
 
+    /**
+     * 批量插入有序set集合
+     *
+     * @param key      缓存键
+     * @param scoreMap value -> score，score须为非负数
+     * @return Long 新增的数量
+     */
+    <T> Long setZSet(String key, Map<T, Long> scoreMap);
+
+    /**
+     * 按score范围分页查询，score升序
+     *
+     * @param key    缓存键
+     * @param min    最小score（包含）
+     * @param max    最大score（包含）
+     * @param offset 偏移量
+     * @param count  数量
+     * @return List<T>
+     */
+    <T> List<T> rangeByScore(String key, Long min, Long max, long offset, long count);
+
+    /**
+     * 按score范围分页查询，score降序
+     *
+     * @param key    缓存键
+     * @param min    最小score（包含）
+     * @param max    最大score（包含）
+     * @param offset 偏移量
+     * @param count  数量
+     * @return List<T>
+     */
+    <T> List<T> reverseRangeByScore(String key, Long min, Long max, long offset, long count);
+
     /**
      * 设置hash
      *
@@ -177,4 +303,23 @@ public interface CacheProviderService {
      */
     Map getHash(String key);
 
+    /**
+     * 批量获取hash字段
+     *
+     * @param key      缓存键
+     * @param hashKeys hash字段
+     * @return List<V> 与hashKeys顺序一致，不存在的字段为null
+     */
+    <K, V> List<V> multiGetHash(String key, Collection<K> hashKeys);
+
+    /**
+     * 游标方式遍历hash，不一次性加载整个hash，使用完毕后须关闭游标
+     *
+     * @param key     缓存键
+     * @param pattern 字段匹配模式 可为空
+     * @param count   每批数量
+     * @return Cursor<Map.Entry < K, V>>
+     */
+    <K, V> Cursor<Map.Entry<K, V>> scanHash(String key, String pattern, long count);
+
 }
@@ -0,0 +1,279 @@
+package com.sparksys.commons.redis.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sparksys.commons.redis.props.LocalCacheProperties;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * description：本地缓存，单个caffeine实例，按条目过期时间过期，按估算内存大小淘汰
+ *
+ * @author zhouxinlei
+ * @date  2020/6/17 0017
+ */
+@Slf4j
+@Component
+public class LocalCache {
+
+    private static final long CACHE_MINUTE = 10 * 60;
+
+    private final LoadingCache<String, Entry> cache;
+
+    private final double refreshRatio;
+
+    public LocalCache(LocalCacheProperties localCacheProperties) {
+        this.refreshRatio = localCacheProperties.getRefreshRatio();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(localCacheProperties.getMaximumWeight())
+                .weigher(new LocalCacheWeigher(localCacheProperties.getObjectWeight()))
+                .expireAfter(new EntryExpiry())
+                .recordStats()//开启统计功能
+                .build(new EntryLoader());
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, "sparksys.local");
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key 缓存键 不可为空
+     **/
+    public <T> T get(String key) {
+        return get(key, null, null, CACHE_MINUTE);
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key      缓存键 不可为空
+     * @param function 如没有缓存，调用该callable函数返回对象 可为空
+     **/
+    public <T> T get(String key, Function<String, T> function) {
+        return get(key, function, key, CACHE_MINUTE);
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key       缓存键 不可为空
+     * @param function  如没有缓存，调用该callable函数返回对象 可为空
+     * @param funcParam function函数的调用参数
+     **/
+    public <T, M> T get(String key, Function<M, T> function, M funcParam) {
+        return get(key, function, funcParam, CACHE_MINUTE);
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key        缓存键 不可为空
+     * @param function   如没有缓存，调用该callable函数返回对象 可为空
+     * @param expireTime 过期时间（单位：秒） 可为空
+     **/
+    public <T> T get(String key, Function<String, T> function, Long expireTime) {
+        return get(key, function, key, expireTime);
+    }
+
+    /**
+     * 查询缓存，命中且存活超过过期时间的refreshRatio时异步刷新
+     *
+     * @param key        缓存键 不可为空
+     * @param function   如没有缓存，调用该callable函数返回对象 可为空
+     * @param funcParam  function函数的调用参数
+     * @param expireTime 过期时间（单位：秒） 可为空
+     **/
+    public <T, M> T get(String key, Function<M, T> function, M funcParam, Long expireTime) {
+        if (StringUtils.isEmpty(key)) {
+            return null;
+        }
+        long expireNanos = TimeUnit.SECONDS.toNanos(getExpireTime(expireTime));
+        try {
+            Entry entry;
+            if (function == null) {
+                entry = cache.getIfPresent(key);
+            } else {
+                Supplier<Object> loader = () -> function.apply(funcParam);
+                entry = cache.get(key, k -> Entry.of(loader.get(), expireNanos, loader));
+                refreshIfNeeded(key, entry);
+            }
+            return entry == null ? null : (T) entry.getValue();
+        } catch (CacheLoadException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 设置缓存键值  直接向缓存中插入值，这会直接覆盖掉给定键之前映射的值
+     *
+     * @param key 缓存键 不可为空
+     * @param obj 缓存值 不可为空
+     **/
+    public <T> void set(String key, T obj) {
+        set(key, obj, CACHE_MINUTE);
+    }
+
+    /**
+     * 设置缓存键值  直接向缓存中插入值，这会直接覆盖掉给定键之前映射的值
+     *
+     * @param key        缓存键 不可为空
+     * @param obj        缓存值 不可为空
+     * @param expireTime 过期时间（单位：秒） 可为空
+     **/
+    public <T> void set(String key, T obj, Long expireTime) {
+        if (StringUtils.isEmpty(key)) {
+            return;
+        }
+        if (obj == null) {
+            return;
+        }
+        cache.put(key, Entry.of(obj, TimeUnit.SECONDS.toNanos(getExpireTime(expireTime)), null));
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 缓存键 不可为空
+     **/
+    public void remove(String key) {
+        if (StringUtils.isEmpty(key)) {
+            return;
+        }
+        cache.invalidate(key);
+    }
+
+    /**
+     * 是否存在缓存
+     *
+     * @param key 缓存键 不可为空
+     **/
+    public boolean contains(String key) {
+        if (StringUtils.isEmpty(key)) {
+            return false;
+        }
+        return cache.getIfPresent(key) != null;
+    }
+
+    /**
+     * 缓存统计信息：命中率、加载耗时、淘汰数等
+     *
+     * @return CacheStats
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 缓存条目数（估算）
+     *
+     * @return long
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private void refreshIfNeeded(String key, Entry entry) {
+        if (entry == null || entry.loader == null || refreshRatio >= 1) {
+            return;
+        }
+        long age = System.nanoTime() - entry.createTime;
+        if (age >= entry.expireNanos * refreshRatio && entry.refreshing.compareAndSet(false, true)) {
+            cache.refresh(key);
+        }
+    }
+
+    /**
+     * 获取过期时间 单位：秒
+     *
+     * @param expireTime 传人的过期时间 单位秒 如小于1分钟，默认为10分钟
+     **/
+    private Long getExpireTime(Long expireTime) {
+        Long result = expireTime;
+        if (expireTime == null || expireTime < CACHE_MINUTE) {
+            result = CACHE_MINUTE;
+        }
+        return result;
+    }
+
+    /**
+     * 缓存条目，携带各自的过期时间及刷新函数
+     */
+    static class Entry {
+
+        private final Object value;
+
+        private final long expireNanos;
+
+        private final long createTime = System.nanoTime();
+
+        private final Supplier<Object> loader;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(Object value, long expireNanos, Supplier<Object> loader) {
+            this.value = value;
+            this.expireNanos = expireNanos;
+            this.loader = loader;
+        }
+
+        static Entry of(Object value, long expireNanos, Supplier<Object> loader) {
+            return value == null ? null : new Entry(value, expireNanos, loader);
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+
+    private static class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.expireNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.expireNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * 只用于异步刷新，首次加载由get时传入的函数完成
+     */
+    private static class EntryLoader implements CacheLoader<String, Entry> {
+
+        @Override
+        public Entry load(String key) {
+            return null;
+        }
+
+        @Override
+        public Entry reload(String key, Entry oldEntry) {
+            try {
+                //返回null时移除该条目
+                return Entry.of(oldEntry.loader.get(), oldEntry.expireNanos, oldEntry.loader);
+            } finally {
+                oldEntry.refreshing.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.sparksys.commons.redis.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * description: 本地缓存条目大小估算，只在写入时计算一次
+ *
+ * @author zhouxinlei
+ * @date 2020-07-04 14:20:41
+ */
+public class LocalCacheWeigher implements Weigher<String, LocalCache.Entry> {
+
+    private static final int OBJECT_HEADER = 16;
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * 集合只展开一层，避免深层对象图遍历
+     */
+    private static final int MAX_DEPTH = 2;
+
+    private final int objectWeight;
+
+    public LocalCacheWeigher(int objectWeight) {
+        this.objectWeight = objectWeight;
+    }
+
+    @Override
+    public int weigh(String key, LocalCache.Entry entry) {
+        long weight = ENTRY_OVERHEAD + estimate(key, 0) + estimate(entry.getValue(), 0);
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private long estimate(Object obj, int depth) {
+        if (obj == null) {
+            return 0;
+        }
+        if (obj instanceof CharSequence) {
+            return OBJECT_HEADER + 24 + 2L * ((CharSequence) obj).length();
+        }
+        if (obj instanceof byte[]) {
+            return OBJECT_HEADER + ((byte[]) obj).length;
+        }
+        if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character || obj instanceof Enum) {
+            return OBJECT_HEADER;
+        }
+        if (depth >= MAX_DEPTH) {
+            return objectWeight;
+        }
+        if (obj instanceof Collection) {
+            long weight = OBJECT_HEADER * 2;
+            for (Object element : (Collection<?>) obj) {
+                weight += 8 + estimate(element, depth + 1);
+            }
+            return weight;
+        }
+        if (obj instanceof Map) {
+            long weight = OBJECT_HEADER * 2;
+            for (Map.Entry<?, ?> mapEntry : ((Map<?, ?>) obj).entrySet()) {
+                weight += 32 + estimate(mapEntry.getKey(), depth + 1) + estimate(mapEntry.getValue(), depth + 1);
+            }
+            return weight;
+        }
+        return objectWeight;
+    }
+}
@@ -0,0 +1,453 @@
+package com.sparksys.commons.redis.cache;
+
+import cn.hutool.core.util.IdUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sparksys.commons.redis.props.NearCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * description: 二级缓存实现，本地缓存(L1)在前，redis(L2)在后
+ * 写操作先写redis，再失效本地缓存并通过redis pub/sub通知其他节点失效
+ *
+ * @author zhouxinlei
+ * @date 2020-07-01 10:20:18
+ */
+@Slf4j
+public class NearCacheProviderImpl implements CacheProviderService, MessageListener {
+
+    private static final String MESSAGE_SEPARATOR = "|";
+
+    /**
+     * 批量失效时一条消息中多个key的分隔符
+     */
+    private static final String KEY_SEPARATOR = "\n";
+
+    private final CacheProviderService redisCacheProvider;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String channel;
+
+    private final String nodeId = IdUtil.simpleUUID();
+
+    /**
+     * 按前缀长度倒序，优先匹配最长前缀
+     */
+    private final List<LocalCacheRegion> regions;
+
+    public NearCacheProviderImpl(CacheProviderService redisCacheProvider,
+                                 StringRedisTemplate stringRedisTemplate,
+                                 NearCacheProperties nearCacheProperties) {
+        this.redisCacheProvider = redisCacheProvider;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.channel = nearCacheProperties.getChannel();
+        this.regions = nearCacheProperties.getPrefixes().stream()
+                .filter(spec -> StringUtils.hasText(spec.getPrefix()))
+                .map(LocalCacheRegion::new)
+                .sorted(Comparator.comparingInt((LocalCacheRegion region) -> region.prefix.length()).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public <T> T get(String key) {
+        LocalCacheRegion region = getRegion(key);
+        if (region == null) {
+            return redisCacheProvider.get(key);
+        }
+        T obj = region.getIfPresent(key);
+        if (obj != null) {
+            return obj;
+        }
+        long version = region.version();
+        obj = redisCacheProvider.get(key);
+        region.put(key, obj, version);
+        return obj;
+    }
+
+    /**
+     * 强一致读跳过本地缓存直接读redis主节点
+     */
+    @Override
+    public <T> T get(String key, ReadConsistency consistency) {
+        if (consistency == ReadConsistency.STRONG) {
+            return redisCacheProvider.get(key, consistency);
+        }
+        LocalCacheRegion region = getRegion(key);
+        if (region == null) {
+            return redisCacheProvider.get(key, consistency);
+        }
+        T obj = region.getIfPresent(key);
+        if (obj != null) {
+            return obj;
+        }
+        long version = region.version();
+        obj = redisCacheProvider.get(key, consistency);
+        region.put(key, obj, version);
+        return obj;
+    }
+
+    @Override
+    public <T> T get(String key, Function<String, T> function) {
+        return get(key, function, key, null);
+    }
+
+    @Override
+    public <T, M> T get(String key, Function<M, T> function, M funcParam) {
+        return get(key, function, funcParam, null);
+    }
+
+    @Override
+    public <T> T get(String key, Function<String, T> function, Long expireTime) {
+        return get(key, function, key, expireTime);
+    }
+
+    @Override
+    public <T, M> T get(String key, Function<M, T> function, M funcParam, Long expireTime) {
+        LocalCacheRegion region = getRegion(key);
+        if (region == null) {
+            return redisCacheProvider.get(key, function, funcParam, expireTime);
+        }
+        T obj = region.getIfPresent(key);
+        if (obj != null) {
+            return obj;
+        }
+        long version = region.version();
+        obj = redisCacheProvider.get(key, function, funcParam, expireTime);
+        region.put(key, obj, version);
+        return obj;
+    }
+
+    @Override
+    public <T> void set(String key, T obj) {
+        redisCacheProvider.set(key, obj);
+        evict(key);
+    }
+
+    @Override
+    public <T> void set(String key, T obj, Long expireTime) {
+        redisCacheProvider.set(key, obj, expireTime);
+        evict(key);
+    }
+
+    @Override
+    public <T> T getAllowNull(String key, Function<String, T> function) {
+        return getAllowNull(key, function, key, null);
+    }
+
+    @Override
+    public <T, M> T getAllowNull(String key, Function<M, T> function, M funcParam, Long expireTime) {
+        LocalCacheRegion region = getRegion(key);
+        if (region == null) {
+            return redisCacheProvider.getAllowNull(key, function, funcParam, expireTime);
+        }
+        T obj = region.getIfPresent(key);
+        if (obj != null) {
+            return obj;
+        }
+        long version = region.version();
+        obj = redisCacheProvider.getAllowNull(key, function, funcParam, expireTime);
+        region.put(key, obj, version);
+        return obj;
+    }
+
+    @Override
+    public <T> T getRefreshAhead(String key, Function<String, T> function) {
+        return redisCacheProvider.getRefreshAhead(key, function);
+    }
+
+    @Override
+    public <T, M> T getRefreshAhead(String key, Function<M, T> function, M funcParam, Long expireTime) {
+        return redisCacheProvider.getRefreshAhead(key, function, funcParam, expireTime);
+    }
+
+    @Override
+    public <T> Map<String, T> multiGet(Collection<String> keys, ReadConsistency consistency) {
+        if (consistency == ReadConsistency.STRONG) {
+            return redisCacheProvider.multiGet(keys, consistency);
+        }
+        return multiGet(keys, missKeys -> redisCacheProvider.multiGet(missKeys, consistency));
+    }
+
+    @Override
+    public <T> Map<String, T> multiGet(Collection<String> keys) {
+        return multiGet(keys, redisCacheProvider::multiGet);
+    }
+
+    /**
+     * 批量查询，本地缓存未命中的key批量读redis
+     *
+     * @param keys        缓存键集合
+     * @param redisLoader 读redis
+     * @return Map<String, T>
+     */
+    private <T> Map<String, T> multiGet(Collection<String> keys, Function<List<String>, Map<String, T>> redisLoader) {
+        Map<String, T> result = new LinkedHashMap<>();
+        List<String> missKeys = new ArrayList<>();
+        Map<String, Long> versions = new HashMap<>();
+        for (String key : keys) {
+            LocalCacheRegion region = getRegion(key);
+            T obj = region == null ? null : region.getIfPresent(key);
+            if (obj != null) {
+                result.put(key, obj);
+            } else {
+                missKeys.add(key);
+                if (region != null) {
+                    versions.put(key, region.version());
+                }
+            }
+        }
+        if (missKeys.isEmpty()) {
+            return result;
+        }
+        Map<String, T> redisResult = redisLoader.apply(missKeys);
+        redisResult.forEach((key, obj) -> {
+            Long version = versions.get(key);
+            if (version != null) {
+                getRegion(key).put(key, obj, version);
+            }
+        });
+        result.putAll(redisResult);
+        return result;
+    }
+
+    @Override
+    public <T> void multiSet(Map<String, T> values, Long expireTime) {
+        redisCacheProvider.multiSet(values, expireTime);
+        evict(values.keySet());
+    }
+
+    @Override
+    public <T> void multiSet(Map<String, T> values, Map<String, Long> expireTimes) {
+        redisCacheProvider.multiSet(values, expireTimes);
+        evict(values.keySet());
+    }
+
+    @Override
+    public void expire(String key, Long expireTime) {
+        redisCacheProvider.expire(key, expireTime);
+        evict(key);
+    }
+
+    @Override
+    public Long increment(String key, long delta) {
+        Long result = redisCacheProvider.increment(key, delta);
+        evict(key);
+        return result;
+    }
+
+    @Override
+    public Long decrement(String key, long delta) {
+        Long result = redisCacheProvider.decrement(key, delta);
+        evict(key);
+        return result;
+    }
+
+    @Override
+    public void remove(String key) {
+        redisCacheProvider.remove(key);
+        evict(key);
+    }
+
+    @Override
+    public void multiRemove(Collection<String> keys) {
+        redisCacheProvider.multiRemove(keys);
+        evict(keys);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        if (StringUtils.isEmpty(key)) {
+            return false;
+        }
+        return get(key) != null;
+    }
+
+    @Override
+    public <T> Boolean setZSet(String key, Long score, T value) {
+        return redisCacheProvider.setZSet(key, score, value);
+    }
+
+    @Override
+    public <T> Long get(String key, T value) {
+        return redisCacheProvider.get(key, value);
+    }
+
+    @Override
+    public <T> T get(String key, Long score) {
+        return redisCacheProvider.get(key, score);
+    }
+
+    @Override
+    public <T> Long setZSet(String key, Map<T, Long> scoreMap) {
+        return redisCacheProvider.setZSet(key, scoreMap);
+    }
+
+    @Override
+    public <T> List<T> rangeByScore(String key, Long min, Long max, long offset, long count) {
+        return redisCacheProvider.rangeByScore(key, min, max, offset, count);
+    }
+
+    @Override
+    public <T> List<T> reverseRangeByScore(String key, Long min, Long max, long offset, long count) {
+        return redisCacheProvider.reverseRangeByScore(key, min, max, offset, count);
+    }
+
+    @Override
+    public <K, V> void setHash(String key, K hashKey, V value) {
+        redisCacheProvider.setHash(key, hashKey, value);
+    }
+
+    @Override
+    public <K> void removeHashEntity(String key, K hashKey) {
+        redisCacheProvider.removeHashEntity(key, hashKey);
+    }
+
+    @Override
+    public Map getHash(String key) {
+        return redisCacheProvider.getHash(key);
+    }
+
+    @Override
+    public <K, V> List<V> multiGetHash(String key, Collection<K> hashKeys) {
+        return redisCacheProvider.multiGetHash(key, hashKeys);
+    }
+
+    @Override
+    public <K, V> Cursor<Map.Entry<K, V>> scanHash(String key, String pattern, long count) {
+        return redisCacheProvider.scanHash(key, pattern, count);
+    }
+
+    /**
+     * 接收其他节点的失效通知
+     *
+     * @param message redis消息
+     * @param pattern 订阅频道
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(MESSAGE_SEPARATOR);
+        if (index < 0) {
+            return;
+        }
+        if (nodeId.equals(body.substring(0, index))) {
+            return;
+        }
+        for (String key : StringUtils.delimitedListToStringArray(body.substring(index + 1), KEY_SEPARATOR)) {
+            LocalCacheRegion region = getRegion(key);
+            if (region != null) {
+                region.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * 失效本地缓存并通知其他节点
+     *
+     * @param key 缓存键
+     */
+    private void evict(String key) {
+        evict(Collections.singletonList(key));
+    }
+
+    /**
+     * 批量失效本地缓存，属于本地缓存区域的key合并为一条消息通知其他节点，格式：nodeId|key1\nkey2
+     *
+     * @param keys 缓存键集合
+     */
+    private void evict(Collection<String> keys) {
+        List<String> evicted = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            LocalCacheRegion region = getRegion(key);
+            if (region != null) {
+                region.invalidate(key);
+                evicted.add(key);
+            }
+        }
+        if (evicted.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(channel,
+                    nodeId.concat(MESSAGE_SEPARATOR).concat(String.join(KEY_SEPARATOR, evicted)));
+        } catch (Exception e) {
+            log.error("near cache invalidate publish failed, keys:{}, {}", evicted, e.getMessage());
+        }
+    }
+
+    private LocalCacheRegion getRegion(String key) {
+        if (StringUtils.isEmpty(key)) {
+            return null;
+        }
+        for (LocalCacheRegion region : regions) {
+            if (key.startsWith(region.prefix)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按前缀划分的本地缓存区域
+     */
+    private static class LocalCacheRegion {
+
+        private final String prefix;
+
+        private final Cache<String, Object> cache;
+
+        /**
+         * 失效版本号，防止读redis期间发生的失效被旧值覆盖
+         */
+        private final AtomicLong version = new AtomicLong();
+
+        LocalCacheRegion(NearCacheProperties.LocalCacheSpec spec) {
+            this.prefix = spec.getPrefix();
+            this.cache = CacheBuilder.newBuilder()
+                    .maximumSize(spec.getMaximumSize())
+                    .expireAfterWrite(spec.getExpireTime(), TimeUnit.SECONDS)
+                    .recordStats()
+                    .build();
+        }
+
+        long version() {
+            return version.get();
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T getIfPresent(String key) {
+            return (T) cache.getIfPresent(key);
+        }
+
+        void put(String key, Object obj, long readVersion) {
+            if (obj != null && version.get() == readVersion) {
+                cache.put(key, obj);
+            }
+        }
+
+        void invalidate(String key) {
+            version.incrementAndGet();
+            cache.invalidate(key);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.sparksys.commons.redis.cache;
+
+/**
+ * description: 空值占位，用于缓存不存在的数据，防止缓存穿透
+ * 使用字符串保存，保证各种编码格式下均可识别
+ *
+ * @author zhouxinlei
+ * @date 2020-07-05 09:31:22
+ */
+public final class NullValue {
+
+    public static final String VALUE = "\u0000sparksys:null";
+
+    private NullValue() {
+    }
+
+    public static boolean isNull(Object obj) {
+        return VALUE.equals(obj);
+    }
+}
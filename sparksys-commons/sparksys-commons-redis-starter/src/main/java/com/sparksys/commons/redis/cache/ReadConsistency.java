@@ -0,0 +1,20 @@
+package com.sparksys.commons.redis.cache;
+
+/**
+ * description: 缓存读一致性
+ *
+ * @author zhouxinlei
+ * @date 2020-07-14 14:10:36
+ */
+public enum ReadConsistency {
+
+    /**
+     * 读主节点，可读到刚写入的值
+     */
+    STRONG,
+
+    /**
+     * 优先读从节点，主从复制延迟期间可能读到旧值，单节点部署时等同于STRONG
+     */
+    EVENTUAL
+}
@@ -1,17 +1,49 @@
 package com.sparksys.commons.redis.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sparksys.commons.redis.hotkey.HotKeyDetector;
+import com.sparksys.commons.redis.props.HotKeyProperties;
+import com.sparksys.commons.redis.props.CacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
-import java.util.HashMap;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -28,15 +60,72 @@ public class RedisCacheProviderImpl implements CacheProviderService {
 
     private ValueOperations<String, Object> valueOperations;
 
+    /**
+     * 从节点读操作，单节点部署时与valueOperations指向同一节点
+     */
+    private ValueOperations<String, Object> replicaValueOperations;
+
+    private final ReplicaRedisOperations replicaRedisOperations;
+
     private final static long CACHE_MINUTE = 60;
 
-    public RedisCacheProviderImpl(RedisTemplate<String, Object> redisTemplate) {
+    private final static String LOAD_LOCK_SUFFIX = ":load";
+
+    private final ObjectProvider<RedissonClient> redissonClientProvider;
+
+    private final CacheProperties cacheProperties;
+
+    private final SingleFlight singleFlight = new SingleFlight("redis");
+
+    private final Counter waitingCounter = Metrics.counter("sparksys.cache.load.waiting", "cache", "redis");
+
+    /**
+     * 提前刷新的值物理过期时间为逻辑过期时间的倍数，保证刷新期间仍有旧值可读
+     */
+    private final static int PHYSICAL_EXPIRE_RATIO = 2;
+
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor refreshExecutor;
+
+    private final HotKeyDetector hotKeyDetector;
+
+    /**
+     * 热点key本地缓存，本节点写操作时失效，其他节点的修改最多延迟localExpireMillis可见
+     */
+    private final Cache<String, Object> hotKeyCache;
+
+    public RedisCacheProviderImpl(RedisTemplate<String, Object> redisTemplate,
+                                  ObjectProvider<RedissonClient> redissonClientProvider,
+                                  CacheProperties cacheProperties,
+                                  HotKeyDetector hotKeyDetector,
+                                  HotKeyProperties hotKeyProperties,
+                                  ReplicaRedisOperations replicaRedisOperations) {
         this.redisTemplate = redisTemplate;
+        this.replicaRedisOperations = replicaRedisOperations;
+        this.redissonClientProvider = redissonClientProvider;
+        this.cacheProperties = cacheProperties;
+        this.hotKeyDetector = hotKeyDetector;
+        this.hotKeyCache = Caffeine.newBuilder()
+                .maximumSize(hotKeyProperties.getLocalMaximumSize())
+                .expireAfterWrite(hotKeyProperties.getLocalExpireMillis(), TimeUnit.MILLISECONDS)
+                .build();
     }
 
     @PostConstruct
     public void initRedisOperation() {
         valueOperations = redisTemplate.opsForValue();
+        replicaValueOperations = replicaRedisOperations.getRedisTemplate().opsForValue();
+        refreshExecutor = new ThreadPoolExecutor(cacheProperties.getRefreshThreads(),
+                cacheProperties.getRefreshThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cacheProperties.getRefreshQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("cache-refresh-%d").setDaemon(true).build());
+        refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
     }
 
     @Override
@@ -44,6 +133,20 @@ public class RedisCacheProviderImpl implements CacheProviderService {
         return get(key, null, null, CACHE_MINUTE);
     }
 
+    @Override
+    public <T> T get(String key, ReadConsistency consistency) {
+        if (StringUtils.isEmpty(key)) {
+            return null;
+        }
+        try {
+            Object value = readValue(key, consistency);
+            return NullValue.isNull(value) ? null : (T) value;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return null;
+    }
+
     @Override
     public <T> T get(String key, Function<String, T> function) {
         return get(key, function, key, CACHE_MINUTE);
@@ -61,26 +164,233 @@ public class RedisCacheProviderImpl implements CacheProviderService {
 
     @Override
     public <T, M> T get(String key, Function<M, T> function, M funcParm, Long expireTime) {
+        return get(key, function, funcParm, expireTime, false);
+    }
+
+    @Override
+    public <T> T getAllowNull(String key, Function<String, T> function) {
+        return getAllowNull(key, function, key, CACHE_MINUTE);
+    }
+
+    @Override
+    public <T, M> T getAllowNull(String key, Function<M, T> function, M funcParam, Long expireTime) {
+        return get(key, function, funcParam, expireTime, true);
+    }
+
+    @Override
+    public <T> T getRefreshAhead(String key, Function<String, T> function) {
+        return getRefreshAhead(key, function, key, CACHE_MINUTE);
+    }
+
+    @Override
+    public <T, M> T getRefreshAhead(String key, Function<M, T> function, M funcParam, Long expireTime) {
+        if (StringUtils.isEmpty(key)) {
+            return null;
+        }
+        long logicalExpireTime = getExpireTime(expireTime);
+        try {
+            Object value = readValue(key);
+            if (value instanceof RefreshAheadValue) {
+                RefreshAheadValue refreshAheadValue = (RefreshAheadValue) value;
+                if (refreshAheadValue.shouldRefresh(cacheProperties.getRefreshBeta())) {
+                    refreshAsync(key, function, funcParam, logicalExpireTime);
+                }
+                return (T) refreshAheadValue.getValue();
+            }
+            if (value != null && !NullValue.isNull(value)) {
+                return (T) value;
+            }
+            //首次加载同步计算
+            Object loaded = singleFlight.execute(key, () -> load(key,
+                    param -> computeRefreshAheadValue(function, param, logicalExpireTime), funcParam,
+                    logicalExpireTime * PHYSICAL_EXPIRE_RATIO, false));
+            if (loaded instanceof RefreshAheadValue) {
+                return (T) ((RefreshAheadValue) loaded).getValue();
+            }
+            return (T) loaded;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return null;
+    }
+
+    private Object readValue(String key) {
+        return readValue(key, cacheProperties.getReadConsistency());
+    }
+
+    /**
+     * 读取缓存值，热点key优先读取本地缓存，强一致读跳过本地缓存直接读主节点
+     *
+     * @param key         缓存键
+     * @param consistency 读一致性
+     * @return Object
+     */
+    private Object readValue(String key, ReadConsistency consistency) {
+        boolean hot = hotKeyDetector.record(key);
+        if (hot && consistency != ReadConsistency.STRONG) {
+            Object value = hotKeyCache.getIfPresent(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        Object value = getValueOperations(consistency).get(key);
+        if (hot && value != null) {
+            hotKeyCache.put(key, value);
+        }
+        return value;
+    }
+
+    private ValueOperations<String, Object> getValueOperations(ReadConsistency consistency) {
+        return consistency == ReadConsistency.STRONG ? valueOperations : replicaValueOperations;
+    }
+
+    private void invalidateHotKey(String key) {
+        if (hotKeyDetector.isEnabled()) {
+            hotKeyCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 后台刷新，同一key在本节点只提交一次，集群内通过回源锁保证只有一个节点刷新
+     */
+    private <T, M> void refreshAsync(String key, Function<M, T> function, M funcParam, long logicalExpireTime) {
+        if (!refreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                RLock lock = null;
+                try {
+                    RedissonClient redissonClient = redissonClientProvider.getIfUnique();
+                    if (redissonClient != null) {
+                        lock = redissonClient.getLock(key.concat(LOAD_LOCK_SUFFIX));
+                        if (!lock.tryLock(0, cacheProperties.getLoadLeaseTime(), TimeUnit.MILLISECONDS)) {
+                            lock = null;
+                            return;
+                        }
+                    }
+                    RefreshAheadValue refreshAheadValue = computeRefreshAheadValue(function, funcParam,
+                            logicalExpireTime);
+                    set(key, refreshAheadValue, logicalExpireTime * PHYSICAL_EXPIRE_RATIO);
+                } catch (Exception e) {
+                    log.error("cache refresh failed, key:{}, {}", key, e.getMessage());
+                } finally {
+                    if (lock != null && lock.isHeldByCurrentThread()) {
+                        lock.unlock();
+                    }
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+        }
+    }
+
+    private <T, M> RefreshAheadValue computeRefreshAheadValue(Function<M, T> function, M funcParam,
+                                                              long logicalExpireTime) {
+        long start = System.currentTimeMillis();
+        T obj = function.apply(funcParam);
+        if (obj == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        return new RefreshAheadValue(obj, now - start, now + TimeUnit.SECONDS.toMillis(logicalExpireTime));
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key        缓存键
+     * @param function   加载函数
+     * @param funcParm   加载函数参数
+     * @param expireTime 过期时间
+     * @param cacheNull  加载结果为null时是否缓存空值占位
+     * @return T
+     */
+    private <T, M> T get(String key, Function<M, T> function, M funcParm, Long expireTime, boolean cacheNull) {
         T obj = null;
         if (StringUtils.isEmpty(key)) {
             return null;
         }
-        expireTime = getExpireTime(expireTime);
+        Long cacheExpireTime = getExpireTime(expireTime);
         try {
-            obj = (T) valueOperations.get(key);
-            if (function != null && obj == null) {
-                obj = function.apply(funcParm);
-                if (obj != null) {
-                    //设置缓存信息
-                    set(key, obj, expireTime);
+            Object value = readValue(key);
+            if (NullValue.isNull(value)) {
+                if (cacheNull || function == null) {
+                    return null;
                 }
+                value = null;
+            }
+            obj = (T) value;
+            if (function != null && obj == null) {
+                //同一key的并发回源合并为一次
+                obj = singleFlight.execute(key, () -> load(key, function, funcParm, cacheExpireTime, cacheNull));
             }
+        } catch (CacheLoadException e) {
+            throw e;
         } catch (Exception e) {
             log.error(e.getMessage());
         }
         return obj;
     }
 
+    /**
+     * 回源加载，集群内通过redisson租约锁保证同一时刻只有一个节点执行加载函数
+     * 未抢到锁的节点等待持有者写入缓存，超时后自行回源；加载前的复查读主节点，避免从节点复制延迟导致重复回源
+     *
+     * @param key        缓存键
+     * @param function   加载函数
+     * @param funcParm   加载函数参数
+     * @param expireTime 过期时间
+     * @param cacheNull  加载结果为null时是否缓存空值占位
+     * @return T
+     */
+    private <T, M> T load(String key, Function<M, T> function, M funcParm, Long expireTime, boolean cacheNull) {
+        Object value = valueOperations.get(key);
+        if (value != null && (cacheNull || !NullValue.isNull(value))) {
+            return NullValue.isNull(value) ? null : (T) value;
+        }
+        RedissonClient redissonClient = redissonClientProvider.getIfUnique();
+        if (redissonClient == null) {
+            return loadAndSet(key, function, funcParm, expireTime, cacheNull);
+        }
+        RLock lock = redissonClient.getLock(key.concat(LOAD_LOCK_SUFFIX));
+        boolean locked = false;
+        try {
+            locked = lock.tryLock(0, cacheProperties.getLoadLeaseTime(), TimeUnit.MILLISECONDS);
+            if (!locked) {
+                waitingCounter.increment();
+                locked = lock.tryLock(cacheProperties.getLoadWaitTime(), cacheProperties.getLoadLeaseTime(),
+                        TimeUnit.MILLISECONDS);
+                value = valueOperations.get(key);
+                if (value != null && (cacheNull || !NullValue.isNull(value))) {
+                    return NullValue.isNull(value) ? null : (T) value;
+                }
+            }
+            return loadAndSet(key, function, funcParm, expireTime, cacheNull);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loadAndSet(key, function, funcParm, expireTime, cacheNull);
+        } finally {
+            if (locked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private <T, M> T loadAndSet(String key, Function<M, T> function, M funcParm, Long expireTime, boolean cacheNull) {
+        T obj = function.apply(funcParm);
+        if (obj != null) {
+            //设置缓存信息
+            set(key, obj, expireTime);
+        } else if (cacheNull) {
+            //缓存空值占位，防止不存在的数据反复回源
+            valueOperations.set(key, NullValue.VALUE, cacheProperties.getNullValueExpireTime(), TimeUnit.SECONDS);
+            invalidateHotKey(key);
+        }
+        return obj;
+    }
+
     @Override
     public <T> void set(String key, T obj) {
         set(key, obj, CACHE_MINUTE);
@@ -95,22 +405,99 @@ public class RedisCacheProviderImpl implements CacheProviderService {
             return;
         }
         expireTime = getExpireTime(expireTime);
-        valueOperations.set(key, obj);
-        expire(key, expireTime);
+        valueOperations.set(key, obj, expireTime, TimeUnit.SECONDS);
+        invalidateHotKey(key);
+    }
+
+    @Override
+    public <T> Map<String, T> multiGet(Collection<String> keys) {
+        return multiGet(keys, cacheProperties.getReadConsistency());
+    }
+
+    @Override
+    public <T> Map<String, T> multiGet(Collection<String> keys, ReadConsistency consistency) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return Collections.emptyMap();
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        List<Object> valueList = getValueOperations(consistency).multiGet(keyList);
+        Map<String, T> result = new LinkedHashMap<>(keyList.size());
+        if (valueList == null) {
+            return result;
+        }
+        Iterator<Object> valueIterator = valueList.iterator();
+        for (String key : keyList) {
+            Object obj = valueIterator.next();
+            if (obj != null && !NullValue.isNull(obj)) {
+                result.put(key, (T) obj);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> void multiSet(Map<String, T> values, Long expireTime) {
+        multiSet(values, Collections.emptyMap(), expireTime);
+    }
+
+    @Override
+    public <T> void multiSet(Map<String, T> values, Map<String, Long> expireTimes) {
+        multiSet(values, expireTimes, CACHE_MINUTE);
+    }
+
+    /**
+     * 批量设置缓存，所有SET EX命令通过pipeline一次往返发送
+     * 集群模式不支持跨节点pipeline，逐个发送，同一批key使用相同hash tag时均落在同一节点
+     *
+     * @param values            缓存键值
+     * @param expireTimes       每个缓存键的过期时间
+     * @param defaultExpireTime 默认过期时间
+     */
+    private <T> void multiSet(Map<String, T> values, Map<String, Long> expireTimes, Long defaultExpireTime) {
+        if (CollectionUtils.isEmpty(values)) {
+            return;
+        }
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            boolean pipelined = !(connection instanceof RedisClusterConnection);
+            if (pipelined) {
+                connection.openPipeline();
+            }
+            try {
+                values.forEach((key, obj) -> {
+                    if (StringUtils.isEmpty(key) || obj == null) {
+                        return;
+                    }
+                    Long expireTime = getExpireTime(expireTimes.getOrDefault(key, defaultExpireTime));
+                    connection.stringCommands().set(keySerializer.serialize(key), valueSerializer.serialize(obj),
+                            Expiration.seconds(expireTime), RedisStringCommands.SetOption.UPSERT);
+                });
+            } finally {
+                if (pipelined) {
+                    connection.closePipeline();
+                }
+            }
+            return null;
+        });
+        values.keySet().forEach(this::invalidateHotKey);
     }
 
     @Override
     public void expire(String key, Long expireTime) {
         redisTemplate.expire(key, expireTime, TimeUnit.SECONDS);
+        invalidateHotKey(key);
     }
 
     @Override
     public Long increment(String key, long delta) {
+        invalidateHotKey(key);
         return valueOperations.increment(key, delta);
     }
 
     @Override
     public Long decrement(String key, long delta) {
+        invalidateHotKey(key);
         return valueOperations.decrement(key, delta);
     }
 
@@ -120,6 +507,29 @@ public class RedisCacheProviderImpl implements CacheProviderService {
             return;
         }
         redisTemplate.delete(key);
+        invalidateHotKey(key);
+    }
+
+    /**
+     * 批量删除缓存，集群模式下不要求key落在同一slot，逐个删除，避免跨slot的DEL被拒绝
+     *
+     * @param keys 缓存键
+     */
+    @Override
+    public void multiRemove(Collection<String> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return;
+        }
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            if (connection instanceof RedisClusterConnection) {
+                keys.forEach(key -> connection.keyCommands().del(keySerializer.serialize(key)));
+            } else {
+                connection.keyCommands().del(keys.stream().map(keySerializer::serialize).toArray(byte[][]::new));
+            }
+            return null;
+        });
+        keys.forEach(this::invalidateHotKey);
     }
 
     @Override
@@ -151,27 +561,70 @@ public class RedisCacheProviderImpl implements CacheProviderService {
 
     @Override
     public <T> Boolean setZSet(String key, Long score, T value) {
-        return redisTemplate.opsForZSet().add(key, value, Double.longBitsToDouble(score));
+        return redisTemplate.opsForZSet().add(key, value, toScore(score));
     }
 
     @Override
     public <T> Long get(String key, T value) {
         Double score = redisTemplate.opsForZSet().score(key, value);
         if (ObjectUtils.isNotEmpty(score)) {
-            return score.longValue();
+            return fromScore(score);
         }
         return null;
     }
 
     @Override
     public <T> T get(String key, Long score) {
-        Set<ZSetOperations.TypedTuple<Object>> valueSet = redisTemplate.opsForZSet().rangeByScoreWithScores(key, 0, -1);
-        for (ZSetOperations.TypedTuple<Object> objectTypedTuple : valueSet) {
-            if (objectTypedTuple.getScore().equals(Double.longBitsToDouble(score))) {
-                return (T) objectTypedTuple.getValue();
-            }
+        double zSetScore = toScore(score);
+        Set<Object> valueSet = redisTemplate.opsForZSet().rangeByScore(key, zSetScore, zSetScore, 0, 1);
+        if (CollectionUtils.isEmpty(valueSet)) {
+            return null;
         }
-        return null;
+        return (T) valueSet.iterator().next();
+    }
+
+    @Override
+    public <T> Long setZSet(String key, Map<T, Long> scoreMap) {
+        if (CollectionUtils.isEmpty(scoreMap)) {
+            return 0L;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>(scoreMap.size());
+        scoreMap.forEach((value, score) -> tuples.add(new DefaultTypedTuple<>(value, toScore(score))));
+        return redisTemplate.opsForZSet().add(key, tuples);
+    }
+
+    @Override
+    public <T> List<T> rangeByScore(String key, Long min, Long max, long offset, long count) {
+        Set<Object> valueSet = redisTemplate.opsForZSet().rangeByScore(key, toScore(min), toScore(max), offset,
+                count);
+        return toList(valueSet);
+    }
+
+    @Override
+    public <T> List<T> reverseRangeByScore(String key, Long min, Long max, long offset, long count) {
+        Set<Object> valueSet = redisTemplate.opsForZSet().reverseRangeByScore(key, toScore(min), toScore(max),
+                offset, count);
+        return toList(valueSet);
+    }
+
+    private static <T> List<T> toList(Set<Object> valueSet) {
+        if (valueSet == null) {
+            return Collections.emptyList();
+        }
+        List<T> valueList = new ArrayList<>(valueSet.size());
+        valueSet.forEach(value -> valueList.add((T) value));
+        return valueList;
+    }
+
+    /**
+     * zset score编码，long按位转为double，非负数时保持大小顺序
+     */
+    private static double toScore(Long score) {
+        return Double.longBitsToDouble(score);
+    }
+
+    private static long fromScore(Double score) {
+        return Double.doubleToRawLongBits(score);
     }
 
     @Override
@@ -188,4 +641,23 @@ public class RedisCacheProviderImpl implements CacheProviderService {
     public Map getHash(String key) {
         return redisTemplate.opsForHash().entries(key);
     }
+
+    @Override
+    public <K, V> List<V> multiGetHash(String key, Collection<K> hashKeys) {
+        if (CollectionUtils.isEmpty(hashKeys)) {
+            return Collections.emptyList();
+        }
+        HashOperations<String, K, V> hashOperations = redisTemplate.opsForHash();
+        return hashOperations.multiGet(key, hashKeys);
+    }
+
+    @Override
+    public <K, V> Cursor<Map.Entry<K, V>> scanHash(String key, String pattern, long count) {
+        ScanOptions.ScanOptionsBuilder scanOptionsBuilder = ScanOptions.scanOptions().count(count);
+        if (StringUtils.hasText(pattern)) {
+            scanOptionsBuilder.match(pattern);
+        }
+        HashOperations<String, K, V> hashOperations = redisTemplate.opsForHash();
+        return hashOperations.scan(key, scanOptionsBuilder.build());
+    }
 }
@@ -0,0 +1,49 @@
+package com.sparksys.commons.redis.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * description: 提前刷新缓存值，携带计算耗时及逻辑过期时间
+ *
+ * @author zhouxinlei
+ * @date 2020-07-06 15:10:42
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshAheadValue implements Serializable {
+
+    private static final long serialVersionUID = -3571802271584339862L;
+
+    /**
+     * 缓存值
+     */
+    private Object value;
+
+    /**
+     * 计算耗时（单位：毫秒）
+     */
+    private long delta;
+
+    /**
+     * 逻辑过期时间戳（单位：毫秒）
+     */
+    private long expiry;
+
+    /**
+     * XFetch概率提前刷新：now - delta * beta * ln(random) >= expiry
+     * 计算越慢、越接近过期，刷新概率越高
+     *
+     * @param beta 大于1倾向于更早刷新
+     * @return boolean
+     */
+    public boolean shouldRefresh(double beta) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return System.currentTimeMillis() - delta * beta * Math.log(random) >= expiry;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sparksys.commons.redis.cache;
+
+import io.lettuce.core.ReadFrom;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.HashSet;
+
+/**
+ * description: 从节点读操作，配置了哨兵或集群（spring.redis.sentinel / spring.redis.cluster）时
+ * 使用独立的lettuce连接优先读从节点，从节点不可用时读主节点；单节点部署时复用主节点模板。
+ * 不注册为RedisTemplate/RedisConnectionFactory类型的bean，避免影响按类型注入及spring boot的自动配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-14 14:32:08
+ */
+public class ReplicaRedisOperations implements DisposableBean {
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public ReplicaRedisOperations(RedisProperties redisProperties, RedisTemplate<String, Object> primaryTemplate) {
+        this.connectionFactory = createConnectionFactory(redisProperties);
+        if (connectionFactory == null) {
+            this.redisTemplate = primaryTemplate;
+            return;
+        }
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(primaryTemplate.getKeySerializer());
+        template.setValueSerializer(primaryTemplate.getValueSerializer());
+        template.setHashKeySerializer(primaryTemplate.getHashKeySerializer());
+        template.setHashValueSerializer(primaryTemplate.getHashValueSerializer());
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+    }
+
+    /**
+     * 是否存在独立的从节点读连接
+     *
+     * @return boolean
+     */
+    public boolean isReplicaAvailable() {
+        return connectionFactory != null;
+    }
+
+    public RedisTemplate<String, Object> getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static LettuceConnectionFactory createConnectionFactory(RedisProperties redisProperties) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .readFrom(ReadFrom.REPLICA_PREFERRED);
+        if (redisProperties.getTimeout() != null) {
+            builder.commandTimeout(redisProperties.getTimeout());
+        }
+        if (redisProperties.isSsl()) {
+            builder.useSsl().and();
+        }
+        RedisPassword password = RedisPassword.of(redisProperties.getPassword());
+        RedisProperties.Cluster cluster = redisProperties.getCluster();
+        if (cluster != null) {
+            RedisClusterConfiguration configuration = new RedisClusterConfiguration(cluster.getNodes());
+            if (cluster.getMaxRedirects() != null) {
+                configuration.setMaxRedirects(cluster.getMaxRedirects());
+            }
+            configuration.setPassword(password);
+            return new LettuceConnectionFactory(configuration, builder.build());
+        }
+        RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+        if (sentinel != null) {
+            RedisSentinelConfiguration configuration = new RedisSentinelConfiguration(sentinel.getMaster(),
+                    new HashSet<>(sentinel.getNodes()));
+            configuration.setDatabase(redisProperties.getDatabase());
+            configuration.setPassword(password);
+            return new LettuceConnectionFactory(configuration, builder.build());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sparksys.commons.redis.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * description: 同一个key的并发加载合并为一次，其余调用方等待并共享同一结果
+ *
+ * @author zhouxinlei
+ * @date 2020-07-02 09:05:12
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    private final Counter coalescedCounter;
+
+    public SingleFlight(String name) {
+        this.coalescedCounter = Metrics.counter("sparksys.cache.load.coalesced", "cache", name);
+    }
+
+    /**
+     * 执行加载，同一key同一时刻只有一个线程执行supplier
+     *
+     * @param key      缓存键
+     * @param supplier 加载函数
+     * @return T
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> supplier) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            coalescedCounter.increment();
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            T result = supplier.get();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.sparksys.commons.redis.components;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * description: 基于redisson的布隆过滤器，未初始化完成或redis异常时视为可能存在，不影响正常查询
+ * 布隆过滤器无法删除元素，删除的数据只会增加误判率，需要重建时删除对应的key后重新初始化
+ *
+ * @author zhouxinlei
+ * @date 2020-07-05 09:52:47
+ */
+@Slf4j
+public class RedisBloomFilter {
+
+    private static final String READY_SUFFIX = ":ready";
+
+    private static final String INIT_LOCK_SUFFIX = ":init";
+
+    private final RedissonClient redissonClient;
+
+    private final String name;
+
+    private final long expectedInsertions;
+
+    private final double falseProbability;
+
+    private volatile boolean ready;
+
+    public RedisBloomFilter(RedissonClient redissonClient, String name, long expectedInsertions,
+                            double falseProbability) {
+        this.redissonClient = redissonClient;
+        this.name = name;
+        this.expectedInsertions = expectedInsertions;
+        this.falseProbability = falseProbability;
+    }
+
+    /**
+     * 初始化，集群内只有一个节点加载全量数据，加载完成后才开始过滤
+     *
+     * @param loader 全量数据
+     */
+    public void init(Supplier<Collection<String>> loader) {
+        if (isReady()) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(name.concat(INIT_LOCK_SUFFIX));
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (isReady()) {
+                return;
+            }
+            RBloomFilter<String> bloomFilter = redissonClient.getBloomFilter(name);
+            bloomFilter.delete();
+            bloomFilter.tryInit(expectedInsertions, falseProbability);
+            Collection<String> values = loader.get();
+            values.forEach(bloomFilter::add);
+            redissonClient.getBucket(name.concat(READY_SUFFIX)).set(Boolean.TRUE);
+            ready = true;
+            log.info("bloom filter {} initialized, size:{}", name, values.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 添加元素，新增数据后调用
+     *
+     * @param value 元素
+     */
+    public void add(String value) {
+        try {
+            redissonClient.<String>getBloomFilter(name).add(value);
+        } catch (Exception e) {
+            log.error("bloom filter {} add failed, {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 是否可能存在，返回false时一定不存在
+     *
+     * @param value 元素
+     * @return boolean
+     */
+    public boolean mightContain(String value) {
+        try {
+            if (!isReady()) {
+                return true;
+            }
+            return redissonClient.<String>getBloomFilter(name).contains(value);
+        } catch (Exception e) {
+            log.error("bloom filter {} contains failed, {}", name, e.getMessage());
+            return true;
+        }
+    }
+
+    private boolean isReady() {
+        if (!ready) {
+            ready = redissonClient.getBucket(name.concat(READY_SUFFIX)).isExists();
+        }
+        return ready;
+    }
+}
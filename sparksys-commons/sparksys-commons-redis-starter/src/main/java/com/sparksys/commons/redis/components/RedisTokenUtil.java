@@ -2,6 +2,8 @@ package com.sparksys.commons.redis.components;
 
 import cn.hutool.core.util.IdUtil;
 import com.sparksys.commons.redis.cache.CacheProviderService;
+import com.sparksys.commons.redis.constant.CacheKey;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
@@ -16,24 +18,31 @@ public class RedisTokenUtil {
 
     private final CacheProviderService cacheProviderService;
 
-    public RedisTokenUtil(CacheProviderService cacheProviderService) {
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public RedisTokenUtil(CacheProviderService cacheProviderService, RedisTemplate<String, Object> redisTemplate) {
         this.cacheProviderService = cacheProviderService;
+        this.redisTemplate = redisTemplate;
     }
 
     public String getToken() {
         String token = "token".concat(IdUtil.simpleUUID());
         long expire = 60 * 60;
-        cacheProviderService.set(token, token, expire);
+        cacheProviderService.set(CacheKey.buildKey(CacheKey.IDEMPOTENT_TOKEN, token), token, expire);
         return token;
     }
 
 
+    /**
+     * 校验并消费token，DEL本身是原子操作，并发请求中只有一个能成功
+     *
+     * @param token token
+     * @return boolean
+     */
     public boolean findToken(String token) {
-        String value = cacheProviderService.get(token);
-        if (!StringUtils.isEmpty(value)) {
-            cacheProviderService.remove(token);
-            return true;
+        if (StringUtils.isEmpty(token)) {
+            return false;
         }
-        return false;
+        return Boolean.TRUE.equals(redisTemplate.delete(CacheKey.buildKey(CacheKey.IDEMPOTENT_TOKEN, token)));
     }
 }
@@ -0,0 +1,23 @@
+package com.sparksys.commons.redis.config;
+
+import com.sparksys.commons.redis.hotkey.HotKeyDetector;
+import com.sparksys.commons.redis.hotkey.HotKeyEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * description：引入actuator时注册热点key监控端点
+ *
+ * @author zhouxinlei
+ * @date 2020-07-07 12:06:19
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+public class HotKeyEndpointConfig {
+
+    @Bean
+    public HotKeyEndpoint hotKeyEndpoint(HotKeyDetector hotKeyDetector) {
+        return new HotKeyEndpoint(hotKeyDetector);
+    }
+}
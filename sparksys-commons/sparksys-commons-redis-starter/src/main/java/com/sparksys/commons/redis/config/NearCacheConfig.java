@@ -0,0 +1,37 @@
+package com.sparksys.commons.redis.config;
+
+import com.sparksys.commons.redis.cache.CacheProviderService;
+import com.sparksys.commons.redis.cache.NearCacheProviderImpl;
+import com.sparksys.commons.redis.props.NearCacheProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * description：二级缓存配置，开启后按类型注入的CacheProviderService均为二级缓存
+ *
+ * @author zhouxinlei
+ * @date 2020-07-01 10:45:02
+ */
+@Configuration
+@ConditionalOnProperty(name = "sparksys.cache.near.enabled", havingValue = "true")
+public class NearCacheConfig {
+
+    @Bean("nearCacheProvider")
+    @Primary
+    public NearCacheProviderImpl nearCacheProvider(@Qualifier("redisCacheProvider") CacheProviderService redisCacheProvider,
+                                                   StringRedisTemplate stringRedisTemplate,
+                                                   NearCacheProperties nearCacheProperties,
+                                                   RedisMessageListenerContainer redisMessageListenerContainer) {
+        NearCacheProviderImpl nearCacheProvider = new NearCacheProviderImpl(redisCacheProvider, stringRedisTemplate,
+                nearCacheProperties);
+        redisMessageListenerContainer.addMessageListener(nearCacheProvider,
+                new ChannelTopic(nearCacheProperties.getChannel()));
+        return nearCacheProvider;
+    }
+}
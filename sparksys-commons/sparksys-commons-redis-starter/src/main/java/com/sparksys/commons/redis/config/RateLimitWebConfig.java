@@ -0,0 +1,39 @@
+package com.sparksys.commons.redis.config;
+
+import com.sparksys.commons.redis.limit.RateLimitInterceptor;
+import com.sparksys.commons.redis.limit.RedisRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * description：web环境下注册接口限流拦截器
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 10:30:12
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(name = "com.sparksys.commons.web.utils.HttpUtils")
+public class RateLimitWebConfig implements WebMvcConfigurer {
+
+    private final RedisRateLimiter redisRateLimiter;
+
+    public RateLimitWebConfig(RedisRateLimiter redisRateLimiter) {
+        this.redisRateLimiter = redisRateLimiter;
+    }
+
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor() {
+        return new RateLimitInterceptor(redisRateLimiter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor()).order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
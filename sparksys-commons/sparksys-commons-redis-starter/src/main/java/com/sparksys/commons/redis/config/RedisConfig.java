@@ -1,16 +1,17 @@
 package com.sparksys.commons.redis.config;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparksys.commons.redis.cache.ReplicaRedisOperations;
+import com.sparksys.commons.redis.props.RedisCodecProperties;
+import com.sparksys.commons.redis.serializer.CompactRedisSerializer;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -27,22 +28,46 @@ public class RedisConfig {
      * redisTemplate设置
      *
      * @param redisConnectionFactory redis连接工厂
+     * @param redisCodecProperties   redis值编码配置
      * @return RedisTemplate<String, Object>
      */
     @Bean(name = "redisTemplate")
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       RedisCodecProperties redisCodecProperties) {
         RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
-        Jackson2JsonRedisSerializer jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer(Object.class);
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
-        jackson2JsonRedisSerializer.setObjectMapper(objectMapper);
+        CompactRedisSerializer compactRedisSerializer = new CompactRedisSerializer(redisCodecProperties);
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(jackson2JsonRedisSerializer);
-        redisTemplate.setHashValueSerializer(jackson2JsonRedisSerializer);
+        redisTemplate.setValueSerializer(compactRedisSerializer);
+        redisTemplate.setHashValueSerializer(compactRedisSerializer);
         redisTemplate.afterPropertiesSet();
         return redisTemplate;
     }
 
+    /**
+     * 从节点读操作，配置了哨兵或集群时缓存读请求可路由到从节点
+     *
+     * @param redisProperties spring redis配置
+     * @param redisTemplate   主节点redisTemplate
+     * @return ReplicaRedisOperations
+     */
+    @Bean
+    public ReplicaRedisOperations replicaRedisOperations(RedisProperties redisProperties,
+                                                         RedisTemplate<String, Object> redisTemplate) {
+        return new ReplicaRedisOperations(redisProperties, redisTemplate);
+    }
+
+    /**
+     * redis消息监听容器，用于缓存失效等广播通知
+     *
+     * @param redisConnectionFactory redis连接工厂
+     * @return RedisMessageListenerContainer
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
 }
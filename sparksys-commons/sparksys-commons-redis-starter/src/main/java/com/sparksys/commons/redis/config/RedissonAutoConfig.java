@@ -1,18 +1,24 @@
 package com.sparksys.commons.redis.config;
 
 import com.sparksys.commons.redis.lock.RedisDistributedLock;
+import com.sparksys.commons.redis.lock.TwoLevelDistributedLock;
 import com.sparksys.commons.redis.props.RedissonProperties;
 import org.apache.commons.lang3.StringUtils;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
+import org.redisson.config.ClusterServersConfig;
 import org.redisson.config.Config;
+import org.redisson.config.SentinelServersConfig;
 import org.redisson.config.SingleServerConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 /*
  * description：Redisson配置
@@ -29,26 +35,104 @@ public class RedissonAutoConfig {
     private RedissonProperties redssionProperties;
 
 
+    /**
+     * 按部署模式创建redisson客户端，哨兵/集群模式下读操作按readMode路由，默认读主节点
+     *
+     * @return RedissonClient
+     */
     @Bean
-    @ConditionalOnProperty(name = "redisson.address")
-    public RedissonClient redissonSingle() {
+    @Conditional(RedissonConfiguredCondition.class)
+    public RedissonClient redissonClient() {
         Config config = new Config();
+        switch (redssionProperties.getMode()) {
+            case SENTINEL:
+                useSentinelServers(config);
+                break;
+            case CLUSTER:
+                useClusterServers(config);
+                break;
+            default:
+                useSingleServer(config);
+        }
+        return Redisson.create(config);
+    }
+
+    private void useSingleServer(Config config) {
         SingleServerConfig serverConfig = config.useSingleServer()
                 .setAddress(redssionProperties.getAddress())
+                .setDatabase(redssionProperties.getDatabase())
                 .setTimeout(redssionProperties.getTimeout())
                 .setConnectionPoolSize(redssionProperties.getConnectionPoolSize())
                 .setConnectionMinimumIdleSize(redssionProperties.getConnectionMinimumIdleSize());
         if (StringUtils.isNotBlank(redssionProperties.getPassword())) {
             serverConfig.setPassword(redssionProperties.getPassword());
         }
-        return Redisson.create(config);
+    }
+
+    private void useSentinelServers(Config config) {
+        SentinelServersConfig serverConfig = config.useSentinelServers()
+                .setMasterName(redssionProperties.getMasterName())
+                .addSentinelAddress(redssionProperties.getSentinelAddresses())
+                .setDatabase(redssionProperties.getDatabase())
+                .setReadMode(redssionProperties.getReadMode())
+                .setTimeout(redssionProperties.getTimeout());
+        if (redssionProperties.getMasterConnectionPoolSize() > 0) {
+            serverConfig.setMasterConnectionPoolSize(redssionProperties.getMasterConnectionPoolSize());
+        }
+        if (redssionProperties.getSlaveConnectionPoolSize() > 0) {
+            serverConfig.setSlaveConnectionPoolSize(redssionProperties.getSlaveConnectionPoolSize());
+        }
+        if (StringUtils.isNotBlank(redssionProperties.getPassword())) {
+            serverConfig.setPassword(redssionProperties.getPassword());
+        }
+    }
+
+    private void useClusterServers(Config config) {
+        ClusterServersConfig serverConfig = config.useClusterServers()
+                .addNodeAddress(redssionProperties.getNodeAddresses())
+                .setScanInterval(redssionProperties.getScanInterval())
+                .setReadMode(redssionProperties.getReadMode())
+                .setTimeout(redssionProperties.getTimeout());
+        if (redssionProperties.getMasterConnectionPoolSize() > 0) {
+            serverConfig.setMasterConnectionPoolSize(redssionProperties.getMasterConnectionPoolSize());
+        }
+        if (redssionProperties.getSlaveConnectionPoolSize() > 0) {
+            serverConfig.setSlaveConnectionPoolSize(redssionProperties.getSlaveConnectionPoolSize());
+        }
+        if (StringUtils.isNotBlank(redssionProperties.getPassword())) {
+            serverConfig.setPassword(redssionProperties.getPassword());
+        }
     }
 
     @Bean
-    RedisDistributedLock redisDistributedLock(@Qualifier("redissonSingle") RedissonClient redissonClient) {
+    RedisDistributedLock redisDistributedLock(@Qualifier("redissonClient") RedissonClient redissonClient) {
         RedisDistributedLock redisDistributedLock = new RedisDistributedLock();
         redisDistributedLock.setRedissonClient(redissonClient);
         return redisDistributedLock;
     }
 
+    @Bean
+    @Primary
+    TwoLevelDistributedLock twoLevelDistributedLock(RedisDistributedLock redisDistributedLock) {
+        return new TwoLevelDistributedLock(redisDistributedLock);
+    }
+
+    /**
+     * 配置了单节点地址或显式指定了部署模式时创建redisson客户端
+     */
+    static class RedissonConfiguredCondition extends AnyNestedCondition {
+
+        RedissonConfiguredCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = "redisson.address")
+        static class AddressConfigured {
+        }
+
+        @ConditionalOnProperty(name = "redisson.mode")
+        static class ModeConfigured {
+        }
+    }
+
 }
@@ -76,6 +76,18 @@ public interface CacheKey {
      */
     String USER = "user";
 
+    /**
+     * 账号 前缀
+     * 完整key: user_account:{account} -> userId (不存在时为空值占位)
+     */
+    String USER_ACCOUNT = "user_account";
+
+    /**
+     * 认证用户 前缀，值中带有加载时的权限版本号，低于当前版本号时重新加载
+     * 完整key: auth_user_detail:{account} -> GlobalAuthUser（含权限列表，不含密码）
+     */
+    String AUTH_USER_DETAIL = "auth_user_detail";
+
     /**
      * 用户拥有那些角色 前缀
      * 完整key: user_role:{USER_ID} -> [ROLE_ID, ...]
@@ -194,6 +206,48 @@ public interface CacheKey {
     String REGISTER_USER = "register";
     // 消息服务缓存 end
 
+    /**
+     * 限流 前缀
+     * 完整key: rate_limit:{resource}:{ip|userId} -> hash(令牌桶) / zset(滑动窗口)
+     */
+    String RATE_LIMIT = "rate_limit";
+
+    /**
+     * 分片计数器 前缀
+     * 完整key: counter:{name}:shards -> 分片数, counter:{name}:{shard} -> Long
+     */
+    String COUNTER = "counter";
+
+    /**
+     * 分布式锁 前缀
+     * 完整key: lock:{prefix}:{key}
+     */
+    String LOCK = "lock";
+
+    /**
+     * 号段 前缀
+     * 完整key: id_segment:{tag} -> 已分配的最大id
+     */
+    String ID_SEGMENT = "id_segment";
+
+    /**
+     * 接口幂等 前缀
+     * 完整key: idempotent:{类名.方法名}:{key} -> 处理中标记 / 首次请求结果
+     */
+    String IDEMPOTENT = "idempotent";
+
+    /**
+     * 接口幂等token 前缀，客户端提交的token只作为key的一部分，不能直接作为key
+     * 完整key: idempotent_token:{token} -> token / 处理中标记 / 首次请求结果
+     */
+    String IDEMPOTENT_TOKEN = "idempotent_token";
+
+    /**
+     * 权限数据版本号，资源/角色变更时递增
+     * 完整key: permission_version -> Long
+     */
+    String PERMISSION_VERSION = "permission_version";
+
     /**
      * 构建没有租户信息的key
      *
@@ -211,6 +265,33 @@ public interface CacheKey {
     }
 
 
+    /**
+     * 构建带hash tag的key，集群模式下tag相同的key落在同一slot，可在一次批量操作或lua脚本中访问
+     * 如 buildHashTagKey(USER_ROLE, userId) -> user_role:{userId}
+     *
+     * @param prefix 前缀
+     * @param tag    hash tag
+     * @param args   tag之后的部分
+     * @return String
+     */
+    static String buildHashTagKey(String prefix, Object tag, Object... args) {
+        String key = prefix.concat(StringPool.COLON).concat(hashTag(tag));
+        if (args.length == 0) {
+            return key;
+        }
+        return key.concat(StringPool.COLON).concat(StrUtil.join(StringPool.COLON, args));
+    }
+
+    /**
+     * 包装为hash tag
+     *
+     * @param tag tag
+     * @return {tag}
+     */
+    static String hashTag(Object tag) {
+        return StringPool.LEFT_BRACE + tag + StringPool.RIGHT_BRACE;
+    }
+
     public static void main(String[] args) {
         LocalDate now = LocalDate.now();
         System.out.println(CacheKey.buildKey(CacheKey.LOGIN_LOG_TODAY_IP, now));
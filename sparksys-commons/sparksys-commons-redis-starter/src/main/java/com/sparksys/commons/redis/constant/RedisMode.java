@@ -0,0 +1,25 @@
+package com.sparksys.commons.redis.constant;
+
+/**
+ * description: redis部署模式
+ *
+ * @author zhouxinlei
+ * @date 2020-07-14 14:05:12
+ */
+public enum RedisMode {
+
+    /**
+     * 单节点
+     */
+    SINGLE,
+
+    /**
+     * 哨兵，一主多从
+     */
+    SENTINEL,
+
+    /**
+     * 集群
+     */
+    CLUSTER
+}
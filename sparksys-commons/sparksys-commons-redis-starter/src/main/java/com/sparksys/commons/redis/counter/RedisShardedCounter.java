@@ -0,0 +1,524 @@
+package com.sparksys.commons.redis.counter;
+
+import cn.hutool.core.util.IdUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sparksys.commons.redis.constant.CacheKey;
+import com.sparksys.commons.redis.props.CounterProperties;
+import com.sparksys.commons.redis.script.RedisScriptRegistry;
+import com.sparksys.commons.redis.script.ScriptInvocation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * description: 基于redis的分片计数器，适用于库存扣减等高并发计数场景
+ * 计数拆分到多个redis key上，扣减随机选择起始分片，单分片不足时依次尝试其他分片，任何情况下不会扣成负数。
+ * 开启本地预取（batch-size大于0）后，节点批量领取许可在本地扣减，空闲的许可定期归还redis。
+ * <p>
+ * 节点领取的许可在同一次lua调用中记入该分片的预留记录（hash，field为节点id），本地使用的许可
+ * 在再次领取、归还及每个reconcile-interval结算时从预留记录中扣除，{@link #get(String)}返回分片余量
+ * 与各节点预留未使用的许可之和。读数前会先结算本节点，其他节点最多有一个reconcile-interval内
+ * 已使用未结算的许可仍计为剩余。节点异常退出时其预留记录保留到计数器过期。
+ *
+ * @author zhouxinlei
+ * @date 2020-07-10 09:45:32
+ */
+@Slf4j
+@Component
+public class RedisShardedCounter {
+
+    /**
+     * 余量足够时扣减，返回扣减后的值；余量不足返回-1；分片不存在返回-2
+     */
+    private static final String DECREMENT_SCRIPT = "counter_decrement";
+
+    /**
+     * 最多扣减ARGV[1]，返回实际扣减数量
+     */
+    private static final String TAKE_SCRIPT = "counter_take";
+
+    /**
+     * 分片存在时增加，返回增加后的值；分片不存在返回-1，避免产生没有过期时间的key
+     */
+    private static final String INCREMENT_SCRIPT = "counter_increment";
+
+    /**
+     * 减少节点在分片上的预留数量，返回剩余的预留数量
+     */
+    private static final String RELEASE_SCRIPT = "counter_release";
+
+    /**
+     * 返回分片余量与各节点在该分片预留数量之和
+     */
+    private static final String GET_SCRIPT = "counter_get";
+
+    private static final String SHARDS_SUFFIX = "shards";
+
+    private static final String RESERVED_SUFFIX = "reserved";
+
+    /**
+     * 当前节点id，作为预留记录的field
+     */
+    private final String nodeId = IdUtil.simpleUUID();
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisScriptRegistry redisScriptRegistry;
+
+    private final CounterProperties counterProperties;
+
+    /**
+     * 计数器名称 -> 分片数
+     */
+    private final Map<String, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 计数器名称 -> 全部分片为空后的本地拒绝截止时间
+     */
+    private final Map<String, Long> exhaustedUntil = new ConcurrentHashMap<>();
+
+    /**
+     * 计数器名称 -> 本地预取的许可
+     */
+    private final Map<String, LocalBatch> batches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reconcileExecutor;
+
+    public RedisShardedCounter(StringRedisTemplate stringRedisTemplate, RedisScriptRegistry redisScriptRegistry,
+                               CounterProperties counterProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisScriptRegistry = redisScriptRegistry;
+        this.counterProperties = counterProperties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (counterProperties.getBatchSize() > 0) {
+            reconcileExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("counter-reconcile-%d").setDaemon(true).build());
+            long interval = counterProperties.getReconcileInterval();
+            reconcileExecutor.scheduleWithFixedDelay(this::reconcile, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reconcileExecutor != null) {
+            reconcileExecutor.shutdownNow();
+        }
+        batches.keySet().forEach(this::flush);
+    }
+
+    /**
+     * 初始化计数器，使用默认分片数，计数器已存在时不做处理
+     *
+     * @param name          计数器名称
+     * @param total         初始总量
+     * @param expireSeconds 过期时间（单位：秒）
+     * @return 是否初始化成功
+     */
+    public boolean init(String name, long total, long expireSeconds) {
+        return init(name, total, counterProperties.getShards(), expireSeconds);
+    }
+
+    /**
+     * 初始化计数器，总量平均拆分到各分片，计数器已存在时不做处理
+     *
+     * @param name          计数器名称
+     * @param total         初始总量
+     * @param shards        分片数
+     * @param expireSeconds 过期时间（单位：秒）
+     * @return 是否初始化成功
+     */
+    public boolean init(String name, long total, int shards, long expireSeconds) {
+        if (total < 0 || shards <= 0 || expireSeconds <= 0) {
+            throw new IllegalArgumentException("total must not be negative, shards and expire must be positive");
+        }
+        Boolean absent = stringRedisTemplate.opsForValue().setIfAbsent(shardsKey(name), String.valueOf(shards),
+                expireSeconds, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(absent)) {
+            return false;
+        }
+        // 分片key不使用hash tag，集群模式下分散到不同节点，此时无法pipeline，逐个写入
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            boolean pipelined = !(connection instanceof RedisClusterConnection);
+            if (pipelined) {
+                connection.openPipeline();
+            }
+            try {
+                for (int i = 0; i < shards; i++) {
+                    long value = total / shards + (i < total % shards ? 1 : 0);
+                    connection.stringCommands().setEx(shardKey(name, i).getBytes(StandardCharsets.UTF_8),
+                            expireSeconds, String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                }
+            } finally {
+                if (pipelined) {
+                    connection.closePipeline();
+                }
+            }
+            return null;
+        });
+        shardCounts.put(name, shards);
+        exhaustedUntil.remove(name);
+        return true;
+    }
+
+    /**
+     * 扣减计数，余量不足时不扣减
+     *
+     * @param name  计数器名称
+     * @param delta 扣减数量
+     * @return 是否扣减成功
+     */
+    public boolean tryDecrement(String name, long delta) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("递减因子必须大于0");
+        }
+        if (counterProperties.getBatchSize() > 0) {
+            return tryDecrementLocal(name, delta);
+        }
+        return take(name, delta, true, null) == delta;
+    }
+
+    /**
+     * 增加计数，如取消订单归还库存
+     *
+     * @param name  计数器名称
+     * @param delta 增加数量
+     * @return 计数器不存在时返回false
+     */
+    public boolean increment(String name, long delta) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("递增因子必须大于0");
+        }
+        int shards = getShards(name);
+        if (shards == 0) {
+            return false;
+        }
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        Long result = redisScriptRegistry.execute(INCREMENT_SCRIPT, ReturnType.INTEGER,
+                Collections.singletonList(shardKey(name, shard)), delta);
+        if (result == null || result < 0) {
+            return false;
+        }
+        exhaustedUntil.remove(name);
+        return true;
+    }
+
+    /**
+     * 获取剩余总量：分片余量加上各节点预留未使用的许可
+     * 先结算本节点已使用的许可，其他节点最多有一个reconcile-interval内已使用的许可尚未结算
+     *
+     * @param name 计数器名称
+     * @return long
+     */
+    public long get(String name) {
+        int shards = getShards(name);
+        if (shards == 0) {
+            return 0;
+        }
+        LocalBatch batch = batches.get(name);
+        if (batch != null) {
+            synchronized (batch) {
+                settle(name, batch);
+            }
+        }
+        List<ScriptInvocation> invocations = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            invocations.add(ScriptInvocation.of(Arrays.asList(shardKey(name, i), reservedKey(name, i))));
+        }
+        List<Object> values = redisScriptRegistry.executeBatch(GET_SCRIPT, ReturnType.INTEGER, invocations);
+        return values.stream().filter(value -> value != null).mapToLong(value -> (Long) value).sum();
+    }
+
+    /**
+     * 本节点预取的许可全部归还redis并清除本节点的预留记录，不影响其他节点预取的许可
+     *
+     * @param name 计数器名称
+     */
+    public void flush(String name) {
+        LocalBatch batch = batches.get(name);
+        if (batch != null) {
+            synchronized (batch) {
+                giveBack(name, batch);
+            }
+        }
+    }
+
+    /**
+     * 删除计数器
+     *
+     * @param name 计数器名称
+     */
+    public void delete(String name) {
+        int shards = getShards(name);
+        List<String> keys = new ArrayList<>(shards * 2 + 1);
+        keys.add(shardsKey(name));
+        for (int i = 0; i < shards; i++) {
+            keys.add(shardKey(name, i));
+            keys.add(reservedKey(name, i));
+        }
+        stringRedisTemplate.delete(keys);
+        shardCounts.remove(name);
+        exhaustedUntil.remove(name);
+        batches.remove(name);
+    }
+
+    private boolean tryDecrementLocal(String name, long delta) {
+        LocalBatch batch = batches.computeIfAbsent(name, key -> new LocalBatch());
+        batch.lastAccess = System.currentTimeMillis();
+        if (batch.tryTake(delta)) {
+            return true;
+        }
+        synchronized (batch) {
+            if (batch.tryTake(delta)) {
+                return true;
+            }
+            settle(name, batch);
+            long fetched = take(name, Math.max(counterProperties.getBatchSize(), delta), false, batch);
+            if (fetched > 0) {
+                batch.remaining.addAndGet(fetched);
+            }
+            return batch.tryTake(delta);
+        }
+    }
+
+    /**
+     * 从redis分片扣减
+     *
+     * @param name         计数器名称
+     * @param delta        扣减数量
+     * @param allOrNothing 为true时不足delta则不扣减，为false时尽量扣减
+     * @param batch        不为null时扣减的许可记入本节点的预留记录
+     * @return 实际扣减数量
+     */
+    private long take(String name, long delta, boolean allOrNothing, LocalBatch batch) {
+        int shards = getShards(name);
+        if (shards == 0) {
+            return 0;
+        }
+        Long until = exhaustedUntil.get(name);
+        if (until != null && until > System.currentTimeMillis()) {
+            return 0;
+        }
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        // 优先从单个分片整体扣减，避免把许可拆散到多个分片
+        for (int i = 0; i < shards; i++) {
+            int shard = (start + i) % shards;
+            Long result = redisScriptRegistry.execute(DECREMENT_SCRIPT, ReturnType.INTEGER,
+                    takeKeys(name, shard, batch), delta, nodeId);
+            if (result == null || result == -2) {
+                shardCounts.remove(name);
+                return 0;
+            }
+            if (result >= 0) {
+                if (batch != null) {
+                    batch.reserve(shard, delta);
+                }
+                return delta;
+            }
+        }
+        long taken = 0;
+        if (delta > 1) {
+            // 单个分片都不足，跨分片凑齐
+            for (int i = 0; i < shards && taken < delta; i++) {
+                int shard = (start + i) % shards;
+                Long result = redisScriptRegistry.execute(TAKE_SCRIPT, ReturnType.INTEGER,
+                        takeKeys(name, shard, batch), delta - taken, nodeId);
+                if (result != null && result > 0) {
+                    taken += result;
+                    if (batch != null) {
+                        batch.reserve(shard, result);
+                    }
+                }
+            }
+        }
+        if (taken == 0) {
+            exhaustedUntil.put(name, System.currentTimeMillis() + counterProperties.getExhaustedCacheMillis());
+            return 0;
+        }
+        if (allOrNothing && taken < delta) {
+            giveBack(name, taken);
+            return 0;
+        }
+        return taken;
+    }
+
+    private void giveBack(String name, long count) {
+        if (count <= 0) {
+            return;
+        }
+        int shards = getShards(name);
+        if (shards == 0) {
+            return;
+        }
+        String key = shardKey(name, ThreadLocalRandom.current().nextInt(shards));
+        try {
+            redisScriptRegistry.execute(INCREMENT_SCRIPT, ReturnType.INTEGER, Collections.singletonList(key), count);
+            exhaustedUntil.remove(name);
+        } catch (Exception e) {
+            log.error("counter give back failed, name:{}, count:{}, {}", name, count, e.getMessage());
+        }
+    }
+
+    /**
+     * 归还本节点预取未使用的许可，并结算已使用的许可，调用方持有batch锁
+     */
+    private void giveBack(String name, LocalBatch batch) {
+        long unused = batch.remaining.getAndSet(0);
+        release(name, batch, batch.reservedTotal() - unused, false);
+        release(name, batch, unused, true);
+    }
+
+    /**
+     * 从本节点的预留记录中扣除已使用的许可，调用方持有batch锁
+     */
+    private void settle(String name, LocalBatch batch) {
+        release(name, batch, batch.reservedTotal() - batch.remaining.get(), false);
+    }
+
+    /**
+     * 按分片减少本节点的预留数量
+     *
+     * @param name     计数器名称
+     * @param batch    本地预取的许可
+     * @param count    数量
+     * @param giveBack 为true时许可归还分片，为false时许可已被使用，只减少预留数量
+     */
+    private void release(String name, LocalBatch batch, long count, boolean giveBack) {
+        Iterator<Map.Entry<Integer, Long>> iterator = batch.reserved.entrySet().iterator();
+        while (count > 0 && iterator.hasNext()) {
+            Map.Entry<Integer, Long> entry = iterator.next();
+            long released = Math.min(count, entry.getValue());
+            int shard = entry.getKey();
+            try {
+                if (giveBack) {
+                    redisScriptRegistry.execute(INCREMENT_SCRIPT, ReturnType.INTEGER,
+                            Arrays.asList(shardKey(name, shard), reservedKey(name, shard)), released, nodeId);
+                    exhaustedUntil.remove(name);
+                } else {
+                    redisScriptRegistry.execute(RELEASE_SCRIPT, ReturnType.INTEGER,
+                            Collections.singletonList(reservedKey(name, shard)), released, nodeId);
+                }
+            } catch (Exception e) {
+                log.error("counter release failed, name:{}, shard:{}, count:{}, giveBack:{}, {}", name, shard,
+                        released, giveBack, e.getMessage());
+                return;
+            }
+            count -= released;
+            if (released == entry.getValue()) {
+                iterator.remove();
+            } else {
+                entry.setValue(entry.getValue() - released);
+            }
+        }
+    }
+
+    /**
+     * 空闲的本地许可归还redis，防止许可滞留在访问量下降的节点上；其余节点结算已使用的许可
+     */
+    private void reconcile() {
+        long now = System.currentTimeMillis();
+        batches.forEach((name, batch) -> {
+            synchronized (batch) {
+                if (now - batch.lastAccess >= counterProperties.getReconcileInterval()) {
+                    giveBack(name, batch);
+                } else {
+                    settle(name, batch);
+                }
+            }
+        });
+    }
+
+    private int getShards(String name) {
+        Integer shards = shardCounts.get(name);
+        if (shards != null) {
+            return shards;
+        }
+        String value = stringRedisTemplate.opsForValue().get(shardsKey(name));
+        if (value == null) {
+            return 0;
+        }
+        shards = Integer.parseInt(value);
+        shardCounts.put(name, shards);
+        return shards;
+    }
+
+    private static String shardsKey(String name) {
+        return CacheKey.buildKey(CacheKey.COUNTER, name, SHARDS_SUFFIX);
+    }
+
+    private static String shardKey(String name, int shard) {
+        return CacheKey.buildKey(CacheKey.COUNTER, name, shard);
+    }
+
+    /**
+     * 分片的预留记录，以分片key作为hash tag，集群模式下与分片落在同一slot，可在同一lua脚本中访问
+     * 完整key: counter:{counter:{name}:{shard}}:reserved -> 节点id -> 预留未使用的许可
+     */
+    private static String reservedKey(String name, int shard) {
+        return CacheKey.buildHashTagKey(CacheKey.COUNTER, shardKey(name, shard), RESERVED_SUFFIX);
+    }
+
+    private static List<String> takeKeys(String name, int shard, LocalBatch batch) {
+        if (batch == null) {
+            return Collections.singletonList(shardKey(name, shard));
+        }
+        return Arrays.asList(shardKey(name, shard), reservedKey(name, shard));
+    }
+
+    /**
+     * 节点本地预取的许可
+     */
+    private static class LocalBatch {
+
+        private final AtomicLong remaining = new AtomicLong();
+
+        /**
+         * 分片 -> redis预留记录中本节点的数量，持有batch锁访问；总和与remaining之差为已使用未结算的许可
+         */
+        private final Map<Integer, Long> reserved = new HashMap<>();
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        void reserve(int shard, long count) {
+            reserved.merge(shard, count, Long::sum);
+        }
+
+        long reservedTotal() {
+            return reserved.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        boolean tryTake(long delta) {
+            while (true) {
+                long current = remaining.get();
+                if (current < delta) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - delta)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.sparksys.commons.redis.hotkey;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * description: 无锁count-min sketch，估算值只会偏大不会偏小
+ *
+ * @author zhouxinlei
+ * @date 2020-07-07 11:20:14
+ */
+public class CountMinSketch {
+
+    private final int width;
+
+    private final int depth;
+
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * 计数加一并返回当前估算值
+     *
+     * @param key 键
+     * @return long
+     */
+    public long add(String key) {
+        int hash1 = spread(key.hashCode());
+        int hash2 = spread(hash1 ^ 0x9E3779B9);
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int index = i * width + Math.floorMod(hash1 + i * hash2, width);
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        return estimate;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
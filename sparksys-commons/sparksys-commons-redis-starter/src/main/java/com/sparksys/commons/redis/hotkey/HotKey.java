@@ -0,0 +1,30 @@
+package com.sparksys.commons.redis.hotkey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * description: 热点key
+ *
+ * @author zhouxinlei
+ * @date 2020-07-07 11:26:50
+ */
+@Data
+@AllArgsConstructor
+public class HotKey {
+
+    /**
+     * 缓存键
+     */
+    private String key;
+
+    /**
+     * 最近窗口内估算读取次数
+     */
+    private long count;
+
+    /**
+     * 热点状态截止时间戳（单位：毫秒）
+     */
+    private long hotUntil;
+}
@@ -0,0 +1,153 @@
+package com.sparksys.commons.redis.hotkey;
+
+import com.sparksys.commons.redis.props.HotKeyProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * description: 热点key探测，按时间窗口采样读取次数，超过阈值的key判定为热点
+ *
+ * @author zhouxinlei
+ * @date 2020-07-07 11:32:08
+ */
+@Component
+public class HotKeyDetector {
+
+    private final HotKeyProperties hotKeyProperties;
+
+    private final Map<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+
+    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
+
+    private volatile CountMinSketch sketch;
+
+    /**
+     * 热点key已满时的准入下限，不超过当前最小读取次数，读取次数不高于它的新key无需扫描直接拒绝
+     */
+    private volatile long admissionFloor;
+
+    public HotKeyDetector(HotKeyProperties hotKeyProperties) {
+        this.hotKeyProperties = hotKeyProperties;
+        this.sketch = newSketch();
+    }
+
+    public boolean isEnabled() {
+        return hotKeyProperties.isEnabled();
+    }
+
+    /**
+     * 记录一次读取
+     *
+     * @param key 缓存键
+     * @return 是否为热点key
+     */
+    public boolean record(String key) {
+        if (!hotKeyProperties.isEnabled()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        rotateIfNeeded(now);
+        double sampleRate = hotKeyProperties.getSampleRate();
+        if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            long count = (long) (sketch.add(key) / Math.min(sampleRate, 1));
+            if (count >= hotKeyProperties.getThreshold()) {
+                return promote(key, count, now);
+            }
+        }
+        HotKey hotKey = hotKeys.get(key);
+        return hotKey != null && hotKey.getHotUntil() >= now;
+    }
+
+    /**
+     * 当前热点key，按读取次数倒序
+     *
+     * @return List<HotKey>
+     */
+    public List<HotKey> hotKeys() {
+        long now = System.currentTimeMillis();
+        return hotKeys.values().stream()
+                .filter(hotKey -> hotKey.getHotUntil() >= now)
+                .sorted(Comparator.comparingLong(HotKey::getCount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 已是热点的key直接续期；新key在热点key已满时，只有读取次数超过当前最小值（或有已过期的热点key）才会
+     * 先淘汰再加入，避免刚加入的key被立即淘汰
+     *
+     * @return 是否为热点key
+     */
+    private boolean promote(String key, long count, long now) {
+        //热点状态保持两个窗口，窗口切换后仍然热的key会被续期
+        long hotUntil = now + hotKeyProperties.getWindowMillis() * 2;
+        if (renew(key, count, hotUntil)) {
+            return true;
+        }
+        int topK = hotKeyProperties.getTopK();
+        if (count <= admissionFloor && hotKeys.size() >= topK) {
+            return false;
+        }
+        synchronized (hotKeys) {
+            if (renew(key, count, hotUntil)) {
+                return true;
+            }
+            if (hotKeys.size() >= topK) {
+                HotKey victim = null;
+                for (HotKey hotKey : hotKeys.values()) {
+                    if (hotKey.getHotUntil() < now) {
+                        victim = hotKey;
+                        break;
+                    }
+                    if (victim == null || hotKey.getCount() < victim.getCount()) {
+                        victim = hotKey;
+                    }
+                }
+                if (victim != null && victim.getHotUntil() >= now) {
+                    if (count <= victim.getCount()) {
+                        admissionFloor = victim.getCount();
+                        return false;
+                    }
+                    admissionFloor = victim.getCount();
+                }
+                if (victim != null) {
+                    hotKeys.remove(victim.getKey(), victim);
+                }
+            } else {
+                admissionFloor = Math.min(admissionFloor, count);
+            }
+            hotKeys.put(key, new HotKey(key, count, hotUntil));
+            return true;
+        }
+    }
+
+    /**
+     * 已是热点的key更新读取次数并续期
+     */
+    private boolean renew(String key, long count, long hotUntil) {
+        return hotKeys.computeIfPresent(key, (k, hotKey) -> {
+            hotKey.setCount(Math.max(hotKey.getCount(), count));
+            hotKey.setHotUntil(hotUntil);
+            return hotKey;
+        }) != null;
+    }
+
+    private void rotateIfNeeded(long now) {
+        long start = windowStart.get();
+        if (now - start < hotKeyProperties.getWindowMillis() || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        sketch = newSketch();
+        hotKeys.values().removeIf(hotKey -> hotKey.getHotUntil() < now);
+    }
+
+    private CountMinSketch newSketch() {
+        return new CountMinSketch(hotKeyProperties.getSketchWidth(), hotKeyProperties.getSketchDepth());
+    }
+}
@@ -0,0 +1,34 @@
+package com.sparksys.commons.redis.id;
+
+import com.sparksys.commons.core.id.SegmentAllocator;
+import com.sparksys.commons.redis.constant.CacheKey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * description: 基于redis INCRBY的号段分配器，开启 sparksys.data.segment.allocator=redis 时替代数据库号段表
+ * redis需开启AOF持久化，计数丢失会导致id重复
+ *
+ * @author zhouxinlei
+ * @date 2020-07-12 11:20:44
+ */
+@Component
+@ConditionalOnProperty(name = "sparksys.data.segment.allocator", havingValue = "redis")
+public class RedisSegmentAllocator implements SegmentAllocator {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisSegmentAllocator(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public long allocate(String tag, int step) {
+        Long maxId = stringRedisTemplate.opsForValue().increment(CacheKey.buildKey(CacheKey.ID_SEGMENT, tag), step);
+        if (maxId == null) {
+            throw new IllegalStateException("allocate id segment failed, tag:" + tag);
+        }
+        return maxId;
+    }
+}
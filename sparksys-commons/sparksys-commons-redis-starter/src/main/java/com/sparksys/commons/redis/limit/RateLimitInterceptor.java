@@ -0,0 +1,108 @@
+package com.sparksys.commons.redis.limit;
+
+import com.sparksys.commons.core.context.BaseContextHandler;
+import com.sparksys.commons.core.support.ResponseResultStatus;
+import com.sparksys.commons.core.utils.limit.KeyedRateLimiter;
+import com.sparksys.commons.redis.annotation.LimitType;
+import com.sparksys.commons.redis.annotation.RateLimit;
+import com.sparksys.commons.redis.constant.CacheKey;
+import com.sparksys.commons.web.utils.HttpUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: 接口限流拦截，处理标注了{@link RateLimit}的接口
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 10:05:47
+ */
+public class RateLimitInterceptor extends HandlerInterceptorAdapter {
+
+    private final RedisRateLimiter redisRateLimiter;
+
+    /**
+     * 限流注解 -> 本地限流器
+     */
+    private final Map<RateLimit, KeyedRateLimiter> localLimiters = new ConcurrentHashMap<>();
+
+    public RateLimitInterceptor(RedisRateLimiter redisRateLimiter) {
+        this.redisRateLimiter = redisRateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        RateLimit rateLimit = handlerMethod.getMethodAnnotation(RateLimit.class);
+        if (rateLimit == null) {
+            rateLimit = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RateLimit.class);
+        }
+        if (rateLimit == null) {
+            return true;
+        }
+        String key = buildKey(rateLimit, handlerMethod);
+        if (rateLimit.localRate() > 0) {
+            long localWait = getLocalLimiter(rateLimit).tryAcquireWithWait(key, rateLimit.permits());
+            if (localWait > 0) {
+                throw reject(response, key, localWait);
+            }
+        }
+        // 被redis拒绝后的重试期内由本地直接拒绝，返回的是剩余的拒绝时间
+        long wait = redisRateLimiter.tryAcquire(key, rateLimit.algorithm(), rateLimit.rate(), rateLimit.capacity(),
+                rateLimit.timeUnit().toMillis(rateLimit.period()), rateLimit.permits());
+        if (wait > 0) {
+            throw reject(response, key, wait);
+        }
+        return true;
+    }
+
+    /**
+     * 设置Retry-After响应头（单位：秒，向上取整）并返回限流异常
+     *
+     * @param response   响应
+     * @param key        限流key
+     * @param waitMillis 建议等待的毫秒数
+     * @return 限流异常
+     */
+    private RuntimeException reject(HttpServletResponse response, String key, long waitMillis) {
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999))));
+        return ResponseResultStatus.REQ_LIMIT.newException(key);
+    }
+
+    private KeyedRateLimiter getLocalLimiter(RateLimit rateLimit) {
+        return localLimiters.computeIfAbsent(rateLimit, limit -> new KeyedRateLimiter(limit.localRate(),
+                limit.period(), limit.timeUnit(), limit.localRate()));
+    }
+
+    private String buildKey(RateLimit rateLimit, HandlerMethod handlerMethod) {
+        String resource = rateLimit.key();
+        if (!StringUtils.hasText(resource)) {
+            resource = handlerMethod.getBeanType().getSimpleName().concat(".")
+                    .concat(handlerMethod.getMethod().getName());
+        }
+        switch (rateLimit.limitType()) {
+            case USER:
+                Long userId = BaseContextHandler.getUserId();
+                if (userId != null && userId != 0L) {
+                    return CacheKey.buildKey(CacheKey.RATE_LIMIT, resource, "user", userId);
+                }
+                return CacheKey.buildKey(CacheKey.RATE_LIMIT, resource, "ip", HttpUtils.getIpAddress());
+            case IP:
+                return CacheKey.buildKey(CacheKey.RATE_LIMIT, resource, "ip", HttpUtils.getIpAddress());
+            default:
+                return CacheKey.buildKey(CacheKey.RATE_LIMIT, resource);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sparksys.commons.redis.limit;
+
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sparksys.commons.redis.annotation.LimitAlgorithm;
+import com.sparksys.commons.redis.script.RedisScriptRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: 基于redis的分布式限流器，每次获取许可为一次原子lua调用，脚本见scripts/rate_limit_*.lua
+ * 被redis拒绝后在本地记录可重试时间，期间同一key直接本地拒绝，不再访问redis
+ *
+ * @author zhouxinlei
+ * @date 2020-07-09 09:30:18
+ */
+@Slf4j
+@Component
+public class RedisRateLimiter {
+
+    /**
+     * 令牌桶脚本，返回0表示获取成功，否则为建议等待的毫秒数
+     */
+    private static final String TOKEN_BUCKET_SCRIPT = "rate_limit_token_bucket";
+
+    /**
+     * 滑动窗口脚本，返回0表示获取成功，否则为窗口内最早请求过期前的毫秒数
+     */
+    private static final String SLIDING_WINDOW_SCRIPT = "rate_limit_sliding_window";
+
+    private final RedisScriptRegistry redisScriptRegistry;
+
+    /**
+     * key -> 本地拒绝截止时间（毫秒）
+     */
+    private final Cache<String, Long> rejectedUntil = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    public RedisRateLimiter(RedisScriptRegistry redisScriptRegistry) {
+        this.redisScriptRegistry = redisScriptRegistry;
+    }
+
+    /**
+     * 尝试获取许可
+     *
+     * @param key            限流key
+     * @param algorithm      限流算法
+     * @param rate           每个周期允许的请求数
+     * @param capacity       令牌桶容量，滑动窗口忽略
+     * @param intervalMillis 周期（单位：毫秒）
+     * @param permits        许可数
+     * @return 0表示获取成功，否则为建议等待的毫秒数
+     */
+    public long tryAcquire(String key, LimitAlgorithm algorithm, long rate, long capacity, long intervalMillis,
+                           int permits) {
+        long limit = algorithm == LimitAlgorithm.TOKEN_BUCKET ? Math.max(capacity, rate) : rate;
+        if (rate <= 0 || intervalMillis <= 0 || permits <= 0 || permits > limit) {
+            throw new IllegalArgumentException("invalid rate limit config, key:" + key);
+        }
+        long now = System.currentTimeMillis();
+        Long until = rejectedUntil.getIfPresent(key);
+        if (until != null && until > now) {
+            Metrics.counter("sparksys.ratelimit.rejected", "source", "local").increment();
+            return until - now;
+        }
+        Long wait;
+        try {
+            if (algorithm == LimitAlgorithm.SLIDING_WINDOW) {
+                wait = redisScriptRegistry.execute(SLIDING_WINDOW_SCRIPT, ReturnType.INTEGER,
+                        Collections.singletonList(key), rate, intervalMillis, permits, IdUtil.fastSimpleUUID());
+            } else {
+                wait = redisScriptRegistry.execute(TOKEN_BUCKET_SCRIPT, ReturnType.INTEGER,
+                        Collections.singletonList(key), rate, intervalMillis, limit, permits);
+            }
+        } catch (Exception e) {
+            // redis不可用时放行，限流不能影响主流程可用性
+            log.error("rate limit script failed, key:{}, {}", key, e.getMessage());
+            return 0;
+        }
+        if (wait == null || wait <= 0) {
+            return 0;
+        }
+        rejectedUntil.put(key, now + wait);
+        Metrics.counter("sparksys.ratelimit.rejected", "source", "redis").increment();
+        return wait;
+    }
+}
@@ -42,7 +42,7 @@ public class RedisDistributedLock extends AbstractDistributedLock {
 
 
     /**
-     * 初始红包数量
+     * 初始红包数量，高并发扣减场景使用{@link com.sparksys.commons.redis.counter.RedisShardedCounter}
      *
      * @param key
      * @param count
@@ -64,8 +64,8 @@ public class RedisDistributedLock extends AbstractDistributedLock {
         if (delta < 0) {
             throw new RuntimeException("递增因子必须大于0");
         }
-        //加1并获取计算后的值
-        return mapCache.addAndGet(key, 1);
+        //加delta并获取计算后的值
+        return mapCache.addAndGet(key, delta);
     }
 
     /**
@@ -80,7 +80,7 @@ public class RedisDistributedLock extends AbstractDistributedLock {
         if (delta < 0) {
             throw new RuntimeException("递减因子必须大于0");
         }
-        //加1并获取计算后的值
+        //减delta并获取计算后的值
         return mapCache.addAndGet(key, -delta);
     }
 }
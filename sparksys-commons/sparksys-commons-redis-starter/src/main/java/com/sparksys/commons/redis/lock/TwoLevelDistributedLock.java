@@ -0,0 +1,120 @@
+package com.sparksys.commons.redis.lock;
+
+import com.sparksys.commons.core.lock.AbstractDistributedLock;
+import com.sparksys.commons.core.lock.DistributedLock;
+import com.sparksys.commons.core.lock.LockRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * description: 两级分布式锁，先获取本地锁再获取分布式锁
+ * 同一JVM内竞争同一key的线程在本地排队，每个JVM最多一个线程去redis竞争锁。
+ * 本地锁由{@link LockRegistry}按key管理，等待本地锁、等待redis锁及持有锁的线程各占一次引用，
+ * 释放后本地锁随引用一起回收，不会因业务id不断变化而堆积
+ *
+ * @author zhouxinlei
+ * @date 2020-07-10 14:08:22
+ */
+@Slf4j
+public class TwoLevelDistributedLock extends AbstractDistributedLock {
+
+    private final DistributedLock delegate;
+
+    /**
+     * key -> 本地锁
+     */
+    private final LockRegistry<LocalLock> localLocks = new LockRegistry<>(key -> new LocalLock());
+
+    public TwoLevelDistributedLock(DistributedLock delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 获取锁
+     *
+     * @param key       键
+     * @param waitTime  等待时间（单位：秒），本地等待与分布式锁等待共用
+     * @param leaseTime 租期（单位：秒）
+     * @return boolean
+     */
+    @Override
+    public boolean lock(String key, int waitTime, long leaseTime) {
+        String prefix = metricPrefix(key);
+        long start = System.nanoTime();
+        LocalLock localLock = localLocks.retain(key);
+        boolean localAcquired = false;
+        boolean acquired = false;
+        try {
+            if (!localLock.lock.tryLock()) {
+                Metrics.counter("sparksys.lock.contention", "prefix", prefix).increment();
+                if (!localLock.lock.tryLock(waitTime, TimeUnit.SECONDS)) {
+                    return false;
+                }
+            }
+            localAcquired = true;
+            long remaining = TimeUnit.SECONDS.toNanos(waitTime) - (System.nanoTime() - start);
+            int remainingSeconds = (int) Math.max(0, TimeUnit.NANOSECONDS.toSeconds(remaining));
+            acquired = delegate.lock(key, remainingSeconds, leaseTime);
+            if (acquired && localLock.holdCount++ == 0) {
+                localLock.holdStart = System.nanoTime();
+            }
+            return acquired;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (!acquired) {
+                if (localAcquired) {
+                    localLock.lock.unlock();
+                }
+                localLocks.release(key, localLock);
+            }
+            Metrics.timer("sparksys.lock.wait", "prefix", prefix, "result", acquired ? "acquired" : "timeout")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean releaseLock(String key) {
+        LocalLock localLock = localLocks.get(key);
+        if (localLock == null || !localLock.lock.isHeldByCurrentThread()) {
+            log.error("lock for key:{} is not held by current thread", key);
+            return false;
+        }
+        if (--localLock.holdCount == 0) {
+            Metrics.timer("sparksys.lock.hold", "prefix", metricPrefix(key))
+                    .record(System.nanoTime() - localLock.holdStart, TimeUnit.NANOSECONDS);
+        }
+        try {
+            return delegate.releaseLock(key);
+        } finally {
+            // 释放获取时的同一个锁实例
+            localLock.lock.unlock();
+            localLocks.release(key, localLock);
+        }
+    }
+
+    /**
+     * 指标按key前缀聚合，去掉最后一段业务id，避免指标数量膨胀
+     */
+    private static String metricPrefix(String key) {
+        int index = key.lastIndexOf(':');
+        return index > 0 ? key.substring(0, index) : key;
+    }
+
+    /**
+     * 本地锁，holdCount为同时持有本地锁和redis锁的重入次数，用于在最外层释放时记录持有时长，
+     * 只由持有本地锁的线程读写
+     */
+    private static class LocalLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private int holdCount;
+
+        private long holdStart;
+    }
+}
@@ -0,0 +1,54 @@
+package com.sparksys.commons.redis.props;
+
+import com.sparksys.commons.redis.cache.ReadConsistency;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * description：缓存加载配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-02 09:18:40
+ */
+@ConfigurationProperties(prefix = "sparksys.cache")
+@Component
+@Data
+public class CacheProperties {
+
+    /**
+     * 缓存未命中时回源加载分布式锁租期（单位：毫秒）
+     */
+    private long loadLeaseTime = 3000;
+
+    /**
+     * 未抢到回源锁的节点等待加载结果的最长时间（单位：毫秒），超时后自行回源
+     */
+    private long loadWaitTime = 500;
+
+    /**
+     * 空值占位过期时间（单位：秒）
+     */
+    private long nullValueExpireTime = 30;
+
+    /**
+     * 提前刷新系数，越大越早刷新
+     */
+    private double refreshBeta = 1.0;
+
+    /**
+     * 提前刷新线程数
+     */
+    private int refreshThreads = 4;
+
+    /**
+     * 提前刷新任务队列长度，队列满时放弃本次刷新
+     */
+    private int refreshQueueCapacity = 256;
+
+    /**
+     * 未指定一致性的读操作默认使用的读一致性，默认读主节点保证读到刚写入的值；
+     * 可容忍复制延迟的读操作通过get(key, ReadConsistency.EVENTUAL)单独指定读从节点（需配置哨兵或集群）
+     */
+    private ReadConsistency readConsistency = ReadConsistency.STRONG;
+}
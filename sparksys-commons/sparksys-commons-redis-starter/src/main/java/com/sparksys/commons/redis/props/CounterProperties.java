@@ -0,0 +1,37 @@
+package com.sparksys.commons.redis.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * description：分片计数器配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-10 09:20:14
+ */
+@ConfigurationProperties(prefix = "sparksys.counter")
+@Component
+@Data
+public class CounterProperties {
+
+    /**
+     * 默认分片数
+     */
+    private int shards = 8;
+
+    /**
+     * 本地预取批量大小，小于等于0时不预取，每次扣减直接访问redis
+     */
+    private long batchSize = 0;
+
+    /**
+     * 本地预取的许可空闲超过该时间后归还redis，未空闲时按该间隔结算已使用的许可（单位：毫秒）
+     */
+    private long reconcileInterval = 5000;
+
+    /**
+     * 计数器全部分片为空后，本地直接拒绝的时间（单位：毫秒），避免售罄后每次扣减都遍历所有分片
+     */
+    private long exhaustedCacheMillis = 200;
+}
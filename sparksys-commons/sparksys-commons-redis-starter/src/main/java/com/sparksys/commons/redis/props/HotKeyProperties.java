@@ -0,0 +1,62 @@
+package com.sparksys.commons.redis.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * description：热点key探测配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-07 11:05:36
+ */
+@ConfigurationProperties(prefix = "sparksys.cache.hotkey")
+@Component
+@Data
+public class HotKeyProperties {
+
+    /**
+     * 是否开启热点key探测及本地缓存
+     */
+    private boolean enabled;
+
+    /**
+     * 采样率，(0, 1]
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 统计窗口（单位：毫秒）
+     */
+    private long windowMillis = 1000;
+
+    /**
+     * 单个窗口内读取次数达到该值判定为热点key
+     */
+    private long threshold = 200;
+
+    /**
+     * 最多保留的热点key数量
+     */
+    private int topK = 50;
+
+    /**
+     * count-min sketch 宽度
+     */
+    private int sketchWidth = 4096;
+
+    /**
+     * count-min sketch 深度
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * 热点key本地缓存过期时间（单位：毫秒）
+     */
+    private long localExpireMillis = 2000;
+
+    /**
+     * 热点key本地缓存最大条数
+     */
+    private long localMaximumSize = 10000;
+}
@@ -0,0 +1,32 @@
+package com.sparksys.commons.redis.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * description：本地缓存配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-04 14:02:25
+ */
+@ConfigurationProperties(prefix = "sparksys.cache.local")
+@Component
+@Data
+public class LocalCacheProperties {
+
+    /**
+     * 本地缓存内存上限（单位：字节），按条目估算大小计算
+     */
+    private long maximumWeight = 64 * 1024 * 1024;
+
+    /**
+     * 无法估算大小的对象按该值计算（单位：字节）
+     */
+    private int objectWeight = 256;
+
+    /**
+     * 条目存活超过过期时间的该比例后，读取时异步刷新，大于等于1表示不刷新
+     */
+    private double refreshRatio = 0.8;
+}
@@ -0,0 +1,54 @@
+package com.sparksys.commons.redis.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * description：二级缓存（本地L1 + redis L2）配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-01 10:12:36
+ */
+@ConfigurationProperties(prefix = "sparksys.cache.near")
+@Component
+@Data
+public class NearCacheProperties {
+
+    /**
+     * 是否开启二级缓存
+     */
+    private boolean enabled;
+
+    /**
+     * 节点间本地缓存失效通知频道
+     */
+    private String channel = "sparksys:cache:near:invalidate";
+
+    /**
+     * 按key前缀配置本地缓存，未匹配任何前缀的key直接访问redis
+     */
+    private List<LocalCacheSpec> prefixes = new ArrayList<>();
+
+    @Data
+    public static class LocalCacheSpec {
+
+        /**
+         * key前缀，如 authuser:
+         */
+        private String prefix;
+
+        /**
+         * 本地缓存最大条数
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * 本地缓存过期时间（单位：秒）
+         */
+        private long expireTime = 30;
+    }
+}
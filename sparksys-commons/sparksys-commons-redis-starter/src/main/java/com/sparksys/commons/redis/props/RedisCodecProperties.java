@@ -0,0 +1,34 @@
+package com.sparksys.commons.redis.props;
+
+import com.sparksys.commons.redis.serializer.CodecType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * description：redis值编码配置
+ * 读取时自动识别所有格式，codec只决定写入格式。滚动升级时先以LEGACY发布全部节点，再切换为SMILE
+ *
+ * @author zhouxinlei
+ * @date 2020-07-03 10:06:51
+ */
+@ConfigurationProperties(prefix = "sparksys.redis.codec")
+@Component
+@Data
+public class RedisCodecProperties {
+
+    /**
+     * 写入编码格式
+     */
+    private CodecType codec = CodecType.LEGACY;
+
+    /**
+     * 是否开启LZ4压缩，LEGACY格式不压缩
+     */
+    private boolean compress = true;
+
+    /**
+     * 超过该大小才压缩（单位：字节）
+     */
+    private int compressThreshold = 1024;
+}
@@ -1,6 +1,8 @@
 package com.sparksys.commons.redis.props;
 
+import com.sparksys.commons.redis.constant.RedisMode;
 import lombok.Data;
+import org.redisson.config.ReadMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -16,12 +18,19 @@ import org.springframework.stereotype.Component;
 @Data
 public class RedissonProperties {
 
+    /**
+     * 部署模式，单节点使用address，哨兵使用masterName及sentinelAddresses，集群使用nodeAddresses
+     */
+    private RedisMode mode = RedisMode.SINGLE;
+
     private int timeout;
 
     private String address;
 
     private String password;
 
+    private int database;
+
     private int connectionPoolSize;
 
     private int connectionMinimumIdleSize;
@@ -34,4 +43,17 @@ public class RedissonProperties {
 
     private String masterName;
 
+    private String[] nodeAddresses;
+
+    /**
+     * 哨兵/集群模式下的读节点，默认读主节点；
+     * 读从节点时刚写入的数据在复制完成前可能读不到（如新账号被布隆过滤器判定为不存在），需显式配置SLAVE开启
+     */
+    private ReadMode readMode = ReadMode.MASTER;
+
+    /**
+     * 集群拓扑扫描间隔（单位：毫秒）
+     */
+    private int scanInterval = 2000;
+
 }
@@ -0,0 +1,27 @@
+package com.sparksys.commons.redis.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * description：redis lua脚本配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-14 09:12:40
+ */
+@ConfigurationProperties(prefix = "sparksys.redis.script")
+@Component
+@Data
+public class ScriptProperties {
+
+    /**
+     * 脚本资源路径，文件名（不含.lua后缀）即脚本名称，同名脚本后加载的覆盖先加载的
+     */
+    private String[] locations = {"classpath*:scripts/*.lua"};
+
+    /**
+     * 启动时是否执行SCRIPT LOAD预加载，未预加载的脚本在首次EVALSHA返回NOSCRIPT时通过EVAL执行
+     */
+    private boolean preload = true;
+}
@@ -0,0 +1,281 @@
+package com.sparksys.commons.redis.script;
+
+import com.sparksys.commons.redis.props.ScriptProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DigestUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: redis lua脚本注册中心
+ * 启动时从classpath加载脚本并执行一次SCRIPT LOAD，调用时只发送sha1（EVALSHA），
+ * redis重启或切换节点导致脚本缓存丢失（NOSCRIPT）时回退为EVAL，EVAL会重新缓存脚本。
+ * 按脚本名称记录执行耗时：sparksys.redis.script（单次）、sparksys.redis.script.batch（批量）
+ *
+ * @author zhouxinlei
+ * @date 2020-07-14 09:25:31
+ */
+@Slf4j
+@Component
+public class RedisScriptRegistry {
+
+    private static final String SCRIPT_SUFFIX = ".lua";
+
+    private static final String NO_SCRIPT_ERROR = "NOSCRIPT";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ScriptProperties scriptProperties;
+
+    /**
+     * 脚本名称 -> 脚本
+     */
+    private final Map<String, LuaScript> scripts = new ConcurrentHashMap<>();
+
+    public RedisScriptRegistry(StringRedisTemplate stringRedisTemplate, ScriptProperties scriptProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.scriptProperties = scriptProperties;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        for (String location : scriptProperties.getLocations()) {
+            for (Resource resource : resolver.getResources(location)) {
+                String filename = resource.getFilename();
+                if (filename == null || !filename.endsWith(SCRIPT_SUFFIX)) {
+                    continue;
+                }
+                try (InputStream inputStream = resource.getInputStream()) {
+                    String name = filename.substring(0, filename.length() - SCRIPT_SUFFIX.length());
+                    scripts.put(name, new LuaScript(name, StreamUtils.copyToString(inputStream,
+                            StandardCharsets.UTF_8)));
+                }
+            }
+        }
+        log.info("redis scripts registered: {}", scripts.keySet());
+        if (scriptProperties.isPreload()) {
+            scripts.values().forEach(this::load);
+        }
+    }
+
+    /**
+     * 注册脚本，同名脚本覆盖
+     *
+     * @param name   脚本名称
+     * @param source 脚本内容
+     */
+    public void register(String name, String source) {
+        LuaScript script = new LuaScript(name, source);
+        scripts.put(name, script);
+        if (scriptProperties.isPreload()) {
+            load(script);
+        }
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param name       脚本名称
+     * @param returnType 返回类型
+     * @param keys       脚本KEYS
+     * @param args       脚本ARGV，byte[]原样传递，其他类型按字符串UTF-8编码
+     * @return INTEGER返回Long，VALUE返回byte[]，MULTI返回List，STATUS返回String，BOOLEAN返回Boolean
+     */
+    public <T> T execute(String name, ReturnType returnType, List<String> keys, Object... args) {
+        LuaScript script = getScript(name);
+        ScriptInvocation invocation = ScriptInvocation.of(keys, args);
+        long start = System.nanoTime();
+        try {
+            return stringRedisTemplate.execute((RedisCallback<T>) connection -> evaluate(connection, script,
+                    returnType, invocation));
+        } finally {
+            script.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 批量执行同一脚本，单机/哨兵模式下所有调用通过pipeline一次往返发送；
+     * 集群模式下各调用的key可能分布在不同节点，逐个执行
+     *
+     * @param name        脚本名称
+     * @param returnType  返回类型
+     * @param invocations 调用参数
+     * @return 与调用参数顺序一致的结果
+     */
+    public List<Object> executeBatch(String name, ReturnType returnType, List<ScriptInvocation> invocations) {
+        if (CollectionUtils.isEmpty(invocations)) {
+            return Collections.emptyList();
+        }
+        LuaScript script = getScript(name);
+        long start = System.nanoTime();
+        try {
+            return stringRedisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                if (connection instanceof RedisClusterConnection) {
+                    List<Object> results = new ArrayList<>(invocations.size());
+                    for (ScriptInvocation invocation : invocations) {
+                        results.add(evaluate(connection, script, returnType, invocation));
+                    }
+                    return results;
+                }
+                return evaluatePipelined(connection, script, returnType, invocations);
+            });
+        } finally {
+            script.batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private LuaScript getScript(String name) {
+        LuaScript script = scripts.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("redis script not found: " + name);
+        }
+        return script;
+    }
+
+    /**
+     * 预加载脚本，失败不影响启动，执行时通过NOSCRIPT回退兜底
+     */
+    private void load(LuaScript script) {
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.scriptingCommands().scriptLoad(script.source));
+        } catch (Exception e) {
+            log.warn("redis script load failed, name:{}, {}", script.name, e.getMessage());
+        }
+    }
+
+    private <T> T evaluate(RedisConnection connection, LuaScript script, ReturnType returnType,
+                           ScriptInvocation invocation) {
+        int numKeys = invocation.getKeys().size();
+        byte[][] keysAndArgs = keysAndArgs(invocation);
+        try {
+            return connection.scriptingCommands().evalSha(script.sha1, returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            script.noScriptCounter.increment();
+            return connection.scriptingCommands().eval(script.source, returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    private List<Object> evaluatePipelined(RedisConnection connection, LuaScript script, ReturnType returnType,
+                                           List<ScriptInvocation> invocations) {
+        List<Object> results;
+        connection.openPipeline();
+        boolean pipelineClosed = false;
+        try {
+            for (ScriptInvocation invocation : invocations) {
+                connection.scriptingCommands().evalSha(script.sha1, returnType, invocation.getKeys().size(),
+                        keysAndArgs(invocation));
+            }
+            try {
+                results = connection.closePipeline();
+            } catch (RedisPipelineException e) {
+                results = new ArrayList<>(e.getPipelineResult());
+            }
+            pipelineClosed = true;
+        } finally {
+            if (!pipelineClosed) {
+                connection.closePipeline();
+            }
+        }
+        // 只有返回NOSCRIPT的调用未执行，逐个回退为EVAL，其余调用不重复执行
+        for (int i = 0; i < results.size(); i++) {
+            Object result = results.get(i);
+            if (!(result instanceof Exception)) {
+                continue;
+            }
+            Exception exception = (Exception) result;
+            if (!isNoScript(exception)) {
+                throw exception instanceof RuntimeException ? (RuntimeException) exception
+                        : new RedisSystemException(exception.getMessage(), exception);
+            }
+            script.noScriptCounter.increment();
+            ScriptInvocation invocation = invocations.get(i);
+            results.set(i, connection.scriptingCommands().eval(script.source, returnType,
+                    invocation.getKeys().size(), keysAndArgs(invocation)));
+        }
+        return results;
+    }
+
+    private static byte[][] keysAndArgs(ScriptInvocation invocation) {
+        List<String> keys = invocation.getKeys();
+        Object[] args = invocation.getArgs();
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        int i = 0;
+        for (String key : keys) {
+            keysAndArgs[i++] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        for (Object arg : args) {
+            keysAndArgs[i++] = arg instanceof byte[] ? (byte[]) arg
+                    : String.valueOf(arg).getBytes(StandardCharsets.UTF_8);
+        }
+        return keysAndArgs;
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        Throwable cause = e;
+        while (cause != null) {
+            String message = cause.getMessage();
+            if (message != null && message.contains(NO_SCRIPT_ERROR)) {
+                return true;
+            }
+            cause = cause.getCause() == cause ? null : cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 已注册的脚本
+     */
+    private static class LuaScript {
+
+        private final String name;
+
+        private final byte[] source;
+
+        private final byte[] sha1;
+
+        private final Timer timer;
+
+        private final Timer batchTimer;
+
+        private final Counter noScriptCounter;
+
+        LuaScript(String name, String source) {
+            this.name = name;
+            this.source = source.getBytes(StandardCharsets.UTF_8);
+            this.sha1 = DigestUtils.sha1DigestAsHex(source).getBytes(StandardCharsets.UTF_8);
+            this.timer = Metrics.timer("sparksys.redis.script", "script", name);
+            this.batchTimer = Metrics.timer("sparksys.redis.script.batch", "script", name);
+            this.noScriptCounter = Metrics.counter("sparksys.redis.script.noscript", "script", name);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.sparksys.commons.redis.script;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * description: 一次脚本调用的参数，用于批量执行
+ *
+ * @author zhouxinlei
+ * @date 2020-07-14 09:40:05
+ */
+@Getter
+public class ScriptInvocation {
+
+    private final List<String> keys;
+
+    /**
+     * 参数，byte[]原样传递，其他类型按字符串UTF-8编码
+     */
+    private final Object[] args;
+
+    private ScriptInvocation(List<String> keys, Object[] args) {
+        this.keys = keys == null ? Collections.emptyList() : keys;
+        this.args = args == null ? new Object[0] : args;
+    }
+
+    public static ScriptInvocation of(List<String> keys, Object... args) {
+        return new ScriptInvocation(keys, args);
+    }
+}
@@ -0,0 +1,41 @@
+package com.sparksys.commons.redis.serializer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * description: redis值编码格式
+ *
+ * @author zhouxinlei
+ * @date 2020-07-03 10:02:16
+ */
+@Getter
+@AllArgsConstructor
+public enum CodecType {
+
+    /**
+     * 原有json格式，不带版本头，兼容未升级节点
+     */
+    LEGACY((byte) 0),
+
+    /**
+     * 带版本头的json
+     */
+    JSON((byte) 1),
+
+    /**
+     * 带版本头的smile二进制json
+     */
+    SMILE((byte) 2);
+
+    private final byte id;
+
+    public static CodecType of(byte id) {
+        for (CodecType codecType : values()) {
+            if (codecType.id == id) {
+                return codecType;
+            }
+        }
+        throw new IllegalArgumentException("unknown redis codec: " + id);
+    }
+}
@@ -0,0 +1,142 @@
+package com.sparksys.commons.redis.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.sparksys.commons.redis.props.RedisCodecProperties;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * description: 带版本头的redis值序列化，支持smile二进制编码及LZ4压缩
+ * <p>
+ * 格式：magic(1) + version(1) + codec(1) + flags(1) + [原始长度(4)] + body
+ * 不以magic开头的数据按原有json格式读取
+ *
+ * @author zhouxinlei
+ * @date 2020-07-03 10:15:32
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 0xAC不可能是合法UTF-8 json的首字节
+     */
+    private static final byte MAGIC = (byte) 0xAC;
+
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 4;
+
+    private static final byte FLAG_LZ4 = 1;
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final RedisCodecProperties redisCodecProperties;
+
+    private final ObjectMapper jsonMapper;
+
+    private final ObjectMapper smileMapper;
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    public CompactRedisSerializer(RedisCodecProperties redisCodecProperties) {
+        this.redisCodecProperties = redisCodecProperties;
+        this.jsonMapper = configure(new ObjectMapper());
+        this.smileMapper = configure(new ObjectMapper(SmileFactory.builder()
+                //重复的类型名等字符串值使用回引用
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build()));
+    }
+
+    private static ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
+        return objectMapper;
+    }
+
+    @Override
+    public byte[] serialize(Object obj) throws SerializationException {
+        if (obj == null) {
+            return EMPTY_ARRAY;
+        }
+        CodecType codecType = redisCodecProperties.getCodec();
+        try {
+            if (codecType == CodecType.LEGACY) {
+                return jsonMapper.writeValueAsBytes(obj);
+            }
+            byte[] body = getMapper(codecType).writeValueAsBytes(obj);
+            byte flags = 0;
+            if (redisCodecProperties.isCompress() && body.length >= redisCodecProperties.getCompressThreshold()) {
+                byte[] compressed = compress(body);
+                if (compressed.length < body.length) {
+                    body = compressed;
+                    flags |= FLAG_LZ4;
+                }
+            }
+            return ByteBuffer.allocate(HEADER_LENGTH + body.length)
+                    .put(MAGIC)
+                    .put(VERSION)
+                    .put(codecType.getId())
+                    .put(flags)
+                    .put(body)
+                    .array();
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Could not write JSON: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] != MAGIC) {
+                return jsonMapper.readValue(bytes, Object.class);
+            }
+            if (bytes[1] > VERSION) {
+                throw new SerializationException("Unsupported redis codec version: " + bytes[1]);
+            }
+            ObjectMapper objectMapper = getMapper(CodecType.of(bytes[2]));
+            if ((bytes[3] & FLAG_LZ4) != 0) {
+                byte[] body = decompress(bytes);
+                return objectMapper.readValue(body, Object.class);
+            }
+            return objectMapper.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private ObjectMapper getMapper(CodecType codecType) {
+        return codecType == CodecType.SMILE ? smileMapper : jsonMapper;
+    }
+
+    /**
+     * 压缩，结果前4字节为原始长度
+     */
+    private byte[] compress(byte[] body) {
+        int maxLength = compressor.maxCompressedLength(body.length);
+        byte[] compressed = new byte[Integer.BYTES + maxLength];
+        ByteBuffer.wrap(compressed).putInt(body.length);
+        int length = compressor.compress(body, 0, body.length, compressed, Integer.BYTES, maxLength);
+        return Arrays.copyOf(compressed, Integer.BYTES + length);
+    }
+
+    private byte[] decompress(byte[] bytes) {
+        int originalLength = ByteBuffer.wrap(bytes, HEADER_LENGTH, Integer.BYTES).getInt();
+        return decompressor.decompress(bytes, HEADER_LENGTH + Integer.BYTES, originalLength);
+    }
+}
@@ -0,0 +1,15 @@
+-- 分片计数器扣减：余量足够时扣减
+-- KEYS[1] 分片key KEYS[2] 可选，分片的预留记录hash（本地预取时传入）
+-- ARGV[1] 扣减数量 ARGV[2] 节点id
+-- 返回扣减后的值；余量不足返回-1；分片不存在返回-2
+local value = tonumber(redis.call('GET', KEYS[1]))
+if value == nil then return -2 end
+local delta = tonumber(ARGV[1])
+if value < delta then return -1 end
+local result = redis.call('DECRBY', KEYS[1], delta)
+if KEYS[2] then
+  redis.call('HINCRBY', KEYS[2], ARGV[2], delta)
+  local ttl = redis.call('PTTL', KEYS[1])
+  if ttl > 0 then redis.call('PEXPIRE', KEYS[2], ttl) end
+end
+return result
@@ -0,0 +1,8 @@
+-- 分片计数器读数：分片余量加上各节点在该分片预留未使用的许可
+-- KEYS[1] 分片key KEYS[2] 分片的预留记录hash
+-- 返回该分片的剩余总量
+local total = tonumber(redis.call('GET', KEYS[1])) or 0
+for _, reserved in ipairs(redis.call('HVALS', KEYS[2])) do
+  total = total + tonumber(reserved)
+end
+return total
@@ -0,0 +1,9 @@
+-- 分片计数器增加：分片存在时增加，避免产生没有过期时间的key
+-- KEYS[1] 分片key KEYS[2] 可选，分片的预留记录hash（归还本地预取的许可时传入，同时减少节点的预留数量）
+-- ARGV[1] 增加数量 ARGV[2] 节点id
+-- 返回增加后的值；分片不存在返回-1
+if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+if KEYS[2] and redis.call('HINCRBY', KEYS[2], ARGV[2], -tonumber(ARGV[1])) <= 0 then
+  redis.call('HDEL', KEYS[2], ARGV[2])
+end
+return redis.call('INCRBY', KEYS[1], ARGV[1])
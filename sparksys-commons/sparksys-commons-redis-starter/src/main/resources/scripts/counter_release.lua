@@ -0,0 +1,10 @@
+-- 分片计数器结算：本地预取的许可已被使用，减少节点在该分片的预留数量
+-- KEYS[1] 分片的预留记录hash
+-- ARGV[1] 已使用数量 ARGV[2] 节点id
+-- 返回节点剩余的预留数量
+local reserved = redis.call('HINCRBY', KEYS[1], ARGV[2], -tonumber(ARGV[1]))
+if reserved <= 0 then
+  redis.call('HDEL', KEYS[1], ARGV[2])
+  return 0
+end
+return reserved
@@ -0,0 +1,14 @@
+-- 分片计数器尽量扣减：最多扣减ARGV[1]
+-- KEYS[1] 分片key KEYS[2] 可选，分片的预留记录hash（本地预取时传入）
+-- ARGV[1] 最多扣减数量 ARGV[2] 节点id
+-- 返回实际扣减数量
+local value = tonumber(redis.call('GET', KEYS[1]))
+if value == nil or value <= 0 then return 0 end
+local taken = math.min(value, tonumber(ARGV[1]))
+redis.call('DECRBY', KEYS[1], taken)
+if KEYS[2] then
+  redis.call('HINCRBY', KEYS[2], ARGV[2], taken)
+  local ttl = redis.call('PTTL', KEYS[1])
+  if ttl > 0 then redis.call('PEXPIRE', KEYS[2], ttl) end
+end
+return taken
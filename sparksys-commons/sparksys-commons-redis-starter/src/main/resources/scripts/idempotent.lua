@@ -0,0 +1,16 @@
+-- 接口幂等：原子地完成 token校验消费/幂等key抢占、处理中判断及结果读取
+-- KEYS[1] token或幂等key
+-- ARGV[1] 处理中标记 ARGV[2] 结果前缀 ARGV[3] 过期时间（毫秒） ARGV[4] 是否token模式（1/0）
+-- 返回 {0} token不存在，{1} 抢占成功（已标记为处理中），{2} 处理中，{3, 结果} 已处理完成
+local value = redis.call('GET', KEYS[1])
+if value then
+  if value == ARGV[1] then return {2} end
+  local prefixLength = string.len(ARGV[2])
+  if string.sub(value, 1, prefixLength) == ARGV[2] then
+    return {3, string.sub(value, prefixLength + 1)}
+  end
+elseif ARGV[4] == '1' then
+  return {0}
+end
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+return {1}
@@ -0,0 +1,24 @@
+-- 滑动窗口限流：zset以请求时间为score记录窗口内的请求
+-- KEYS[1] 限流key
+-- ARGV[1] 窗口内允许的请求数 ARGV[2] 窗口大小（毫秒） ARGV[3] 本次获取的许可数 ARGV[4] 请求唯一标识
+-- 返回0表示获取成功，否则为窗口内最早请求过期前的毫秒数
+redis.replicate_commands()
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+local count = redis.call('ZCARD', KEYS[1])
+if count + requested > limit then
+  local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+  if oldest[2] then
+    return math.max(1, tonumber(oldest[2]) + window - now)
+  end
+  return window
+end
+for i = 1, requested do
+  redis.call('ZADD', KEYS[1], now, ARGV[4] .. ':' .. i)
+end
+redis.call('PEXPIRE', KEYS[1], window)
+return 0
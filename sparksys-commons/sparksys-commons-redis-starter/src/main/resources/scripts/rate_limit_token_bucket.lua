@@ -0,0 +1,31 @@
+-- 令牌桶限流：hash结构保存剩余令牌数及上次补充时间，使用redis时间避免节点间时钟不一致
+-- KEYS[1] 限流key
+-- ARGV[1] 每个周期补充的令牌数 ARGV[2] 周期（毫秒） ARGV[3] 桶容量 ARGV[4] 本次获取的令牌数
+-- 返回0表示获取成功，否则为建议等待的毫秒数
+redis.replicate_commands()
+local rate = tonumber(ARGV[1])
+local interval = tonumber(ARGV[2])
+local capacity = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+  tokens = capacity
+  ts = now
+end
+if now > ts then
+  tokens = math.min(capacity, tokens + (now - ts) * rate / interval)
+  ts = now
+end
+local wait = 0
+if tokens >= requested then
+  tokens = tokens - requested
+else
+  wait = math.ceil((requested - tokens) * interval / rate)
+end
+redis.call('HMSET', KEYS[1], 'tokens', tokens, 'ts', ts)
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * interval / rate) + 1000)
+return wait
@@ -1,68 +1,185 @@
 package com.sparksys.commons.security.component;
 
 import cn.hutool.core.util.URLUtil;
-import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sparksys.commons.redis.constant.CacheKey;
 import com.sparksys.commons.security.service.DynamicSecurityService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.web.FilterInvocation;
 import org.springframework.security.web.access.intercept.FilterInvocationSecurityMetadataSource;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 
 import javax.annotation.PostConstruct;
-import java.util.*;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * description： 动态权限数据处理器
+ * 权限数据以带版本号的不可变索引保存，收到{@link PermissionChangePublisher}的变更广播或定时检查发现redis中的版本号更新时，
+ * 在后台线程重建索引后整体替换，请求线程始终读取当前索引，不会等待重建
  *
  * @author： zhouxinlei
  * @date： 2020-06-24 16:07:53
  */
-public class DynamicSecurityMetadataSource implements FilterInvocationSecurityMetadataSource {
+@Slf4j
+public class DynamicSecurityMetadataSource implements FilterInvocationSecurityMetadataSource, MessageListener {
 
-    private static Map<String, ConfigAttribute> configAttributeMap = null;
+    /**
+     * 预编译的url权限索引，权限数据变更时整体替换
+     */
+    private volatile UrlPatternIndex urlPatternIndex;
 
     @Autowired
     private DynamicSecurityService dynamicSecurityService;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 路径匹配结果缓存条数
+     */
+    @Value("${sparksys.security.matchCacheSize:10000}")
+    private long matchCacheSize;
+
+    /**
+     * 权限版本号检查间隔（单位：秒），广播消息丢失时兜底
+     */
+    @Value("${sparksys.security.permissionCheckInterval:30}")
+    private long permissionCheckInterval;
+
+    /**
+     * 需要重建到的最新版本号
+     */
+    private final AtomicLong requestedVersion = new AtomicLong();
+
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    private ScheduledExecutorService reloadExecutor;
+
     @PostConstruct
     public void loadDataSource() {
-        configAttributeMap = dynamicSecurityService.loadDataSource();
+        long version = currentVersion();
+        requestedVersion.set(version);
+        urlPatternIndex = new UrlPatternIndex(dynamicSecurityService.loadDataSource(), version, matchCacheSize);
+        reloadExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("permission-reload-%d").setDaemon(true).build());
+        reloadExecutor.scheduleWithFixedDelay(this::checkVersion, permissionCheckInterval,
+                permissionCheckInterval, TimeUnit.SECONDS);
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(PermissionChangePublisher.CHANNEL));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        redisMessageListenerContainer.removeMessageListener(this);
+        reloadExecutor.shutdownNow();
     }
 
+    /**
+     * 后台重新加载本节点权限数据，当前索引在重建完成前继续生效
+     */
     public void clearDataSource() {
-        configAttributeMap.clear();
-        configAttributeMap = null;
+        reload(urlPatternIndex.getVersion());
     }
 
+    /**
+     * 接收权限变更广播
+     *
+     * @param message 变更后的版本号
+     * @param pattern 订阅频道
+     */
     @Override
-    public Collection<ConfigAttribute> getAttributes(Object o) throws IllegalArgumentException {
-        if (configAttributeMap == null) {
-            this.loadDataSource();
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            reload(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("illegal permission version message: {}", e.getMessage());
         }
-        List<ConfigAttribute> configAttributes = Lists.newArrayList();
+    }
+
+    @Override
+    public Collection<ConfigAttribute> getAttributes(Object o) throws IllegalArgumentException {
         //获取当前访问的路径
         String url = ((FilterInvocation) o).getRequestUrl();
         String path = URLUtil.getPath(url);
-        PathMatcher pathMatcher = new AntPathMatcher();
-        //获取访问该路径所需资源
-        for (String pattern : configAttributeMap.keySet()) {
-            if (pathMatcher.match(pattern, path)) {
-                configAttributes.add(configAttributeMap.get(pattern));
-            }
-        }
         // 未设置操作请求权限，返回空集合
-        return configAttributes;
+        return urlPatternIndex.match(path);
     }
 
     @Override
     public Collection<ConfigAttribute> getAllConfigAttributes() {
-        return configAttributeMap.values();
+        return urlPatternIndex.getAllConfigAttributes();
     }
 
     @Override
     public boolean supports(Class<?> aClass) {
         return true;
     }
+
+    private void checkVersion() {
+        long version = currentVersion();
+        if (version > urlPatternIndex.getVersion()) {
+            reload(version);
+        }
+    }
+
+    /**
+     * 提交重建任务，重建期间的多次变更合并为一次
+     *
+     * @param version 需要重建到的版本号
+     */
+    private void reload(long version) {
+        requestedVersion.accumulateAndGet(version, Math::max);
+        if (reloading.compareAndSet(false, true)) {
+            reloadExecutor.execute(this::doReload);
+        }
+    }
+
+    private void doReload() {
+        boolean reloaded = false;
+        try {
+            long version = requestedVersion.get();
+            UrlPatternIndex index = new UrlPatternIndex(dynamicSecurityService.loadDataSource(), version,
+                    matchCacheSize);
+            urlPatternIndex = index;
+            reloaded = true;
+            log.info("permission index reloaded, version:{}, patterns:{}", version,
+                    index.getAllConfigAttributes().size());
+        } catch (Exception e) {
+            // 保留旧索引，由定时版本检查重试
+            log.error("permission index reload failed, {}", e.getMessage());
+        } finally {
+            reloading.set(false);
+        }
+        // 重建期间又收到新版本时继续重建
+        if (reloaded && requestedVersion.get() > urlPatternIndex.getVersion()
+                && reloading.compareAndSet(false, true)) {
+            reloadExecutor.execute(this::doReload);
+        }
+    }
+
+    private long currentVersion() {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(CacheKey.PERMISSION_VERSION);
+            return version == null ? 0 : Long.parseLong(version);
+        } catch (Exception e) {
+            log.error("get permission version failed, {}", e.getMessage());
+            return 0;
+        }
+    }
 }
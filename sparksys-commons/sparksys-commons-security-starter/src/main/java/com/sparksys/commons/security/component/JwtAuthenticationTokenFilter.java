@@ -5,6 +5,7 @@ import com.sparksys.commons.security.entity.AuthUserDetail;
 import com.sparksys.commons.security.registry.SecurityRegistry;
 import com.sparksys.commons.security.service.AbstractSecurityAuthDetailService;
 import com.sparksys.commons.core.utils.jwt.JwtTokenUtil;
+import com.sparksys.commons.core.utils.jwt.TokenInfo;
 import com.sparksys.commons.web.utils.HttpResponseUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -43,17 +44,22 @@ public class JwtAuthenticationTokenFilter extends OncePerRequestFilter {
             if (!securityRegistry.isIgnoreToken(request.getRequestURI())) {
                 String accessToken = HttpResponseUtils.getAuthHeader(request);
                 if (StringUtils.isNotEmpty(accessToken)) {
-                    String username = JwtTokenUtil.getUserNameFromToken(accessToken);
-                    log.info("checking username:{}", username);
-                    GlobalAuthUser authUser = abstractSecurityAuthDetailService.getUserInfo(accessToken);
-                    if (StringUtils.equals(authUser.getAccount(), username)) {
-                        AuthUserDetail authUserDetail = abstractSecurityAuthDetailService.getAuthUserDetail(username);
-                        if (JwtTokenUtil.validateToken(accessToken, authUserDetail.getUsername())) {
-                            UsernamePasswordAuthenticationToken authentication =
-                                    new UsernamePasswordAuthenticationToken(authUserDetail, null, authUserDetail.getAuthorities());
-                            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                            log.info("authenticated user:{}", username);
-                            SecurityContextHolder.getContext().setAuthentication(authentication);
+                    // 签名及过期时间在解析时一并校验，同一token的校验结果缓存复用
+                    TokenInfo tokenInfo = JwtTokenUtil.parseToken(accessToken);
+                    if (tokenInfo != null) {
+                        String username = tokenInfo.getSubject();
+                        log.info("checking username:{}", username);
+                        GlobalAuthUser authUser = abstractSecurityAuthDetailService.getUserInfo(accessToken);
+                        if (StringUtils.equals(authUser.getAccount(), username)) {
+                            AuthUserDetail authUserDetail =
+                                    abstractSecurityAuthDetailService.getCachedAuthUserDetail(username);
+                            if (authUserDetail != null) {
+                                UsernamePasswordAuthenticationToken authentication =
+                                        new UsernamePasswordAuthenticationToken(authUserDetail, null, authUserDetail.getAuthorities());
+                                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                                log.info("authenticated user:{}", username);
+                                SecurityContextHolder.getContext().setAuthentication(authentication);
+                            }
                         }
                     }
                 }
@@ -0,0 +1,57 @@
+package com.sparksys.commons.security.component;
+
+import com.sparksys.commons.redis.constant.CacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * description: 权限数据变更通知，递增redis中的权限版本号并通过pub/sub广播，
+ * 各节点的{@link DynamicSecurityMetadataSource}收到后在后台重建权限索引。
+ * 在事务中调用时事务提交后再通知，保证其他节点重新加载时能读到新数据
+ *
+ * @author zhouxinlei
+ * @date 2020-07-15 09:32:16
+ */
+@Slf4j
+public class PermissionChangePublisher {
+
+    /**
+     * 权限变更广播频道，消息内容为变更后的版本号
+     */
+    static final String CHANNEL = "sparksys:security:permission";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public PermissionChangePublisher(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 通知权限数据已变更
+     */
+    public void publish() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doPublish();
+                }
+            });
+        } else {
+            doPublish();
+        }
+    }
+
+    private void doPublish() {
+        try {
+            Long version = stringRedisTemplate.opsForValue().increment(CacheKey.PERMISSION_VERSION);
+            stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(version));
+            log.info("permission changed, version:{}", version);
+        } catch (Exception e) {
+            // 广播失败时各节点通过定时版本检查兜底
+            log.error("permission change publish failed, {}", e.getMessage());
+        }
+    }
+}
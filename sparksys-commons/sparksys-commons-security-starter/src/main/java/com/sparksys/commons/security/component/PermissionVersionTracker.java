@@ -0,0 +1,96 @@
+package com.sparksys.commons.security.component;
+
+import com.sparksys.commons.redis.constant.CacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * description: 本节点已知的权限数据版本号，订阅{@link PermissionChangePublisher}的变更广播更新，
+ * 广播消息丢失时在读取版本号时按间隔回查redis兜底，请求线程通常只读取内存中的版本号
+ *
+ * @author zhouxinlei
+ * @date 2020-07-15 15:42:08
+ */
+@Slf4j
+public class PermissionVersionTracker implements MessageListener {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final long checkIntervalMillis;
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 下次回查redis的时间
+     */
+    private final AtomicLong nextCheckTime = new AtomicLong();
+
+    public PermissionVersionTracker(StringRedisTemplate stringRedisTemplate,
+                                    RedisMessageListenerContainer redisMessageListenerContainer,
+                                    long checkInterval) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.checkIntervalMillis = TimeUnit.SECONDS.toMillis(checkInterval);
+    }
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(PermissionChangePublisher.CHANNEL));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        redisMessageListenerContainer.removeMessageListener(this);
+    }
+
+    /**
+     * 获取当前权限版本号
+     *
+     * @return long
+     */
+    public long currentVersion() {
+        long now = System.currentTimeMillis();
+        long next = nextCheckTime.get();
+        // 同一时刻只有一个线程回查，其他线程直接使用内存中的版本号
+        if (now >= next && nextCheckTime.compareAndSet(next, now + checkIntervalMillis)) {
+            refresh();
+        }
+        return version.get();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            update(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("illegal permission version message: {}", e.getMessage());
+        }
+    }
+
+    private void refresh() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(CacheKey.PERMISSION_VERSION);
+            if (value != null) {
+                update(Long.parseLong(value));
+            }
+        } catch (Exception e) {
+            log.error("get permission version failed, {}", e.getMessage());
+        }
+    }
+
+    private void update(long newVersion) {
+        version.accumulateAndGet(newVersion, Math::max);
+    }
+}
@@ -0,0 +1,173 @@
+package com.sparksys.commons.security.component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * description: 预编译的url权限索引，按路径段构建前缀树，字面量段走hash查找，通配段单独分支，
+ * 匹配耗时只与路径深度及命中的分支数相关，与资源总数无关。
+ * 前缀树只用于筛选候选pattern，候选再经AntPathMatcher确认，匹配语义与逐个AntPathMatcher匹配一致。
+ * 路径 -> 所需权限的结果保存在有界LRU缓存中，索引不可变，权限数据变更时整体重建并以新版本替换
+ *
+ * @author zhouxinlei
+ * @date 2020-07-14 16:20:45
+ */
+public final class UrlPatternIndex {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private static final String SINGLE_WILDCARD = "*";
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final Map<String, ConfigAttribute> configAttributeMap;
+
+    /**
+     * 权限数据版本号
+     */
+    private final long version;
+
+    private final Node root = new Node();
+
+    private final Cache<String, List<ConfigAttribute>> matchCache;
+
+    public UrlPatternIndex(Map<String, ConfigAttribute> configAttributeMap, long version, long cacheSize) {
+        this.configAttributeMap = configAttributeMap == null ? Collections.emptyMap() : configAttributeMap;
+        this.version = version;
+        this.configAttributeMap.keySet().forEach(this::insert);
+        this.matchCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * 获取访问路径所需的权限
+     *
+     * @param path 请求路径，不含参数
+     * @return 未配置权限时返回空集合
+     */
+    public List<ConfigAttribute> match(String path) {
+        List<ConfigAttribute> configAttributes = matchCache.getIfPresent(path);
+        if (configAttributes == null) {
+            configAttributes = doMatch(path);
+            matchCache.put(path, configAttributes);
+        }
+        return configAttributes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Collection<ConfigAttribute> getAllConfigAttributes() {
+        return configAttributeMap.values();
+    }
+
+    private List<ConfigAttribute> doMatch(String path) {
+        String[] segments = StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+        Set<String> candidates = new LinkedHashSet<>();
+        collect(root, segments, 0, candidates);
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ConfigAttribute> configAttributes = new ArrayList<>(candidates.size());
+        for (String pattern : candidates) {
+            if (PATH_MATCHER.match(pattern, path)) {
+                configAttributes.add(configAttributeMap.get(pattern));
+            }
+        }
+        return configAttributes.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(configAttributes);
+    }
+
+    private void insert(String pattern) {
+        Node node = root;
+        for (String segment : StringUtils.tokenizeToStringArray(pattern, PATH_SEPARATOR, false, true)) {
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                if (node.doubleWildcard == null) {
+                    node.doubleWildcard = new Node();
+                }
+                node = node.doubleWildcard;
+            } else if (isSingleWildcard(segment)) {
+                if (node.singleWildcard == null) {
+                    node.singleWildcard = new Node();
+                }
+                node = node.singleWildcard;
+            } else if (PATH_MATCHER.isPattern(segment)) {
+                node = node.patternChildren.computeIfAbsent(segment, key -> new Node());
+            } else {
+                node = node.literalChildren.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.patterns.add(pattern);
+    }
+
+    /**
+     * 收集可能匹配的pattern，结尾分隔符等细节交由AntPathMatcher确认
+     */
+    private static void collect(Node node, String[] segments, int index, Set<String> candidates) {
+        if (node.doubleWildcard != null) {
+            // ** 匹配0到多个路径段
+            for (int i = index; i <= segments.length; i++) {
+                collect(node.doubleWildcard, segments, i, candidates);
+            }
+        }
+        if (index == segments.length) {
+            candidates.addAll(node.patterns);
+            if (node.singleWildcard != null) {
+                // /a/* 可匹配 /a/
+                candidates.addAll(node.singleWildcard.patterns);
+            }
+            return;
+        }
+        String segment = segments[index];
+        Node literal = node.literalChildren.get(segment);
+        if (literal != null) {
+            collect(literal, segments, index + 1, candidates);
+        }
+        if (node.singleWildcard != null) {
+            collect(node.singleWildcard, segments, index + 1, candidates);
+        }
+        for (Map.Entry<String, Node> entry : node.patternChildren.entrySet()) {
+            if (PATH_MATCHER.match(entry.getKey(), segment)) {
+                collect(entry.getValue(), segments, index + 1, candidates);
+            }
+        }
+    }
+
+    /**
+     * 整段匹配任意内容的通配段：* 或不带正则的路径变量 {name}
+     */
+    private static boolean isSingleWildcard(String segment) {
+        return SINGLE_WILDCARD.equals(segment) || (segment.startsWith("{") && segment.endsWith("}")
+                && segment.indexOf('{', 1) < 0 && segment.indexOf(':') < 0);
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> literalChildren = new HashMap<>();
+
+        /**
+         * 含 ? * {name:regex} 等的部分通配段
+         */
+        private final Map<String, Node> patternChildren = new HashMap<>();
+
+        private Node singleWildcard;
+
+        private Node doubleWildcard;
+
+        private final List<String> patterns = new ArrayList<>(1);
+    }
+}
@@ -4,6 +4,8 @@ import com.sparksys.commons.core.utils.collection.ListUtils;
 import com.sparksys.commons.security.authorization.DynamicAccessDecisionManager;
 import com.sparksys.commons.security.component.DynamicSecurityMetadataSource;
 import com.sparksys.commons.security.component.JwtAuthenticationTokenFilter;
+import com.sparksys.commons.security.component.PermissionChangePublisher;
+import com.sparksys.commons.security.component.PermissionVersionTracker;
 import com.sparksys.commons.security.component.RestAuthenticationEntryPoint;
 import com.sparksys.commons.security.component.RestfulAccessDeniedHandler;
 import com.sparksys.commons.security.filter.DynamicSecurityFilter;
@@ -13,6 +15,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -124,6 +128,32 @@ public abstract class AbstractSecurityConfig extends WebSecurityConfigurerAdapte
     public abstract IgnoreUrlsProperties ignoreUrlsProperties();
 
 
+    /**
+     * 权限数据变更通知，资源或角色修改后调用
+     *
+     * @param stringRedisTemplate redis模板
+     * @return PermissionChangePublisher
+     */
+    @Bean
+    public PermissionChangePublisher permissionChangePublisher(StringRedisTemplate stringRedisTemplate) {
+        return new PermissionChangePublisher(stringRedisTemplate);
+    }
+
+    /**
+     * 本节点已知的权限数据版本号，用于判断缓存的用户权限是否过期
+     *
+     * @param stringRedisTemplate           redis模板
+     * @param redisMessageListenerContainer redis消息监听容器
+     * @param checkInterval                 回查redis版本号间隔（单位：秒）
+     * @return PermissionVersionTracker
+     */
+    @Bean
+    public PermissionVersionTracker permissionVersionTracker(StringRedisTemplate stringRedisTemplate,
+                                                             RedisMessageListenerContainer redisMessageListenerContainer,
+                                                             @Value("${sparksys.security.permissionCheckInterval:30}") long checkInterval) {
+        return new PermissionVersionTracker(stringRedisTemplate, redisMessageListenerContainer, checkInterval);
+    }
+
     @ConditionalOnBean(name = "dynamicSecurityService")
     @ConditionalOnProperty(name = {"sparksys.security.dynamicSecurity"}, havingValue = "true")
     @Bean
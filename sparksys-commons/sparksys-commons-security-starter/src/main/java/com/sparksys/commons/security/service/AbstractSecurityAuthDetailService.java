@@ -13,12 +13,14 @@ import com.sparksys.commons.core.constant.CoreConstant;
 import com.sparksys.commons.core.support.BusinessException;
 import com.sparksys.commons.core.utils.crypto.MD5Utils;
 import com.sparksys.commons.redis.cache.CacheProviderService;
-import com.sparksys.commons.redis.cache.RedisCacheProviderImpl;
+import com.sparksys.commons.redis.constant.CacheKey;
+import com.sparksys.commons.security.component.PermissionVersionTracker;
 import com.sparksys.commons.security.entity.AuthToken;
 import com.sparksys.commons.security.request.AuthRequest;
 import com.sparksys.commons.core.utils.jwt.JwtTokenUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -33,6 +35,12 @@ import java.util.List;
 @Slf4j
 public abstract class AbstractSecurityAuthDetailService extends AbstractAuthUserRequest {
 
+    @Autowired
+    private CacheProviderService cacheProviderService;
+
+    @Autowired
+    private PermissionVersionTracker permissionVersionTracker;
+
     /**
      * 登录
      *
@@ -52,7 +60,8 @@ public abstract class AbstractSecurityAuthDetailService extends AbstractAuthUser
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(adminUserDetails,
                 null, adminUserDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        token = JwtTokenUtil.generateToken(account);
+        authUser.setPermissionVersion(permissionVersionTracker.currentVersion());
+        token = JwtTokenUtil.generateToken(authUser);
         authUser.setPassword(null);
         AuthToken authToken = new AuthToken();
         authToken.setToken(token);
@@ -83,7 +92,7 @@ public abstract class AbstractSecurityAuthDetailService extends AbstractAuthUser
      * @return void
      */
     private void accessToken(AuthToken authToken, GlobalAuthUser authUser) {
-        CacheProviderService cacheProviderService = SpringContextUtils.getBean(RedisCacheProviderImpl.class);
+        CacheProviderService cacheProviderService = SpringContextUtils.getBean(CacheProviderService.class);
         String token = authToken.getToken();
         BaseContextHandler.setAccount(authUser.getAccount());
         BaseContextHandler.setUserId(authUser.getId());
@@ -92,6 +101,32 @@ public abstract class AbstractSecurityAuthDetailService extends AbstractAuthUser
                 authToken.getExpiration());
     }
 
+    /**
+     * 从缓存获取认证用户及其权限，缓存不存在或权限版本号低于当前版本号时通过{@link #getAuthUserDetail(String)}重新加载，
+     * 用户信息变更时需删除{@link CacheKey#AUTH_USER_DETAIL}缓存，角色权限变更时由权限版本号使缓存失效
+     *
+     * @param account 用户名
+     * @return AuthUserDetail
+     */
+    public AuthUserDetail getCachedAuthUserDetail(String account) {
+        String cacheKey = CacheKey.buildKey(CacheKey.AUTH_USER_DETAIL, account);
+        // 先取版本号再加载，保证加载到的权限数据不旧于该版本
+        long version = permissionVersionTracker.currentVersion();
+        GlobalAuthUser authUser = cacheProviderService.get(cacheKey);
+        if (authUser != null && authUser.getPermissionVersion() != null && authUser.getPermissionVersion() >= version) {
+            return new AuthUserDetail(authUser);
+        }
+        AuthUserDetail authUserDetail = getAuthUserDetail(account);
+        if (authUserDetail == null) {
+            return null;
+        }
+        authUser = authUserDetail.getAuthUser();
+        authUser.setPassword(null);
+        authUser.setPermissionVersion(version);
+        cacheProviderService.set(cacheKey, authUser, CoreConstant.JwtTokenConstant.JWT_EXPIRATION);
+        return authUserDetail;
+    }
+
     /**
      * 根据用户名获取用户信息
      *
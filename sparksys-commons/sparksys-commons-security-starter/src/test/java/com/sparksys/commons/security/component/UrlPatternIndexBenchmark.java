@@ -0,0 +1,133 @@
+package com.sparksys.commons.security.component;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: UrlPatternIndex 基准测试，不随单元测试执行，通过main方法运行
+ * <p>
+ * 以约1万条REST风格的资源pattern对比：逐个AntPathMatcher匹配（原实现）、
+ * 前缀树筛选 + AntPathMatcher确认（不使用结果缓存）、以及命中结果缓存的情况
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 17:48:30
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlPatternIndexBenchmark {
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private static final String[] ACTIONS = {"list", "page", "detail", "save", "update", "delete", "export"};
+
+    @Param({"10000"})
+    private int patternCount;
+
+    private Map<String, ConfigAttribute> configAttributeMap;
+
+    private UrlPatternIndex uncachedIndex;
+
+    private UrlPatternIndex cachedIndex;
+
+    private String[] paths;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(20200716L);
+        configAttributeMap = new LinkedHashMap<>();
+        int resource = 0;
+        while (configAttributeMap.size() < patternCount) {
+            String prefix = "/service" + (resource % 50) + "/resource" + resource;
+            for (String action : ACTIONS) {
+                configAttributeMap.put(prefix + "/" + action, new SecurityConfig(prefix + "/" + action));
+            }
+            configAttributeMap.put(prefix + "/{id}", new SecurityConfig(prefix + "/{id}"));
+            configAttributeMap.put(prefix + "/{id}/items/*", new SecurityConfig(prefix + "/{id}/items/*"));
+            configAttributeMap.put(prefix + "/export/**", new SecurityConfig(prefix + "/export/**"));
+            resource++;
+        }
+        configAttributeMap.put("/**/health", new SecurityConfig("/**/health"));
+        uncachedIndex = new UrlPatternIndex(configAttributeMap, 1, 0);
+        cachedIndex = new UrlPatternIndex(configAttributeMap, 1, 10000);
+        paths = new String[1024];
+        for (int i = 0; i < paths.length; i++) {
+            int target = random.nextInt(resource);
+            String prefix = "/service" + (target % 50) + "/resource" + target;
+            switch (random.nextInt(4)) {
+                case 0:
+                    paths[i] = prefix + "/" + ACTIONS[random.nextInt(ACTIONS.length)];
+                    break;
+                case 1:
+                    paths[i] = prefix + "/" + random.nextInt(100000);
+                    break;
+                case 2:
+                    paths[i] = prefix + "/" + random.nextInt(100000) + "/items/" + random.nextInt(100);
+                    break;
+                default:
+                    paths[i] = "/unknown/" + random.nextInt(100000);
+            }
+        }
+    }
+
+    private String nextPath() {
+        cursor = (cursor + 1) & (paths.length - 1);
+        return paths[cursor];
+    }
+
+    @Benchmark
+    public List<ConfigAttribute> linearScan() {
+        String path = nextPath();
+        List<ConfigAttribute> configAttributes = new ArrayList<>();
+        for (Map.Entry<String, ConfigAttribute> entry : configAttributeMap.entrySet()) {
+            if (PATH_MATCHER.match(entry.getKey(), path)) {
+                configAttributes.add(entry.getValue());
+            }
+        }
+        return configAttributes;
+    }
+
+    @Benchmark
+    public List<ConfigAttribute> trieUncached() {
+        return uncachedIndex.match(nextPath());
+    }
+
+    @Benchmark
+    public List<ConfigAttribute> trieCached() {
+        return cachedIndex.match(nextPath());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UrlPatternIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
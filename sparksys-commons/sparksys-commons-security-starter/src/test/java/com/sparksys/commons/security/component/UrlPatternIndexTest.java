@@ -0,0 +1,158 @@
+package com.sparksys.commons.security.component;
+
+import org.junit.Test;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: UrlPatternIndex 测试，前缀树 + AntPathMatcher 的匹配结果必须与逐个AntPathMatcher匹配一致
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 17:20:11
+ */
+public class UrlPatternIndexTest {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/**",
+            "/api/**",
+            "/api/user",
+            "/api/user/",
+            "/api/user/*",
+            "/api/user/{id}",
+            "/api/user/{id:\\d+}",
+            "/api/user/{id}/",
+            "/api/user/{id}/orders",
+            "/api/*/orders",
+            "/api/**/orders",
+            "/api/**/orders/**",
+            "/api/**/*.json",
+            "/api/user/u?er",
+            "/api/{service}-{version}/info",
+            "/**/health",
+            "/static/**/*.js",
+            "api/user");
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/",
+            "",
+            "/api",
+            "/api/",
+            "/api/user",
+            "/api/user/",
+            "/api/user/1",
+            "/api/user/abc",
+            "/api/user/1/",
+            "/api/user/1/orders",
+            "/api/user/1/orders/",
+            "/api/order/orders",
+            "/api/a/b/c/orders",
+            "/api/a/b/c/orders/2",
+            "/api/a/b/data.json",
+            "/api/user/uxer",
+            "/api/user-v1/info",
+            "/health",
+            "/a/b/health",
+            "/static/js/app.js",
+            "/static/app.js",
+            "/api//user",
+            "api/user");
+
+    @Test
+    public void sameResultAsLinearScan() {
+        Map<String, ConfigAttribute> configAttributeMap = configAttributes(PATTERNS);
+        UrlPatternIndex index = new UrlPatternIndex(configAttributeMap, 1, 1000);
+        for (String path : PATHS) {
+            assertEquals(path, linearScan(configAttributeMap, path), asSet(index.match(path)));
+        }
+    }
+
+    @Test
+    public void trailingSlashFollowsAntPathMatcher() {
+        Map<String, ConfigAttribute> configAttributeMap = configAttributes(Arrays.asList(
+                "/a/b", "/a/b/", "/a/*", "/a/{id}", "/a/**"));
+        UrlPatternIndex index = new UrlPatternIndex(configAttributeMap, 1, 1000);
+        assertEquals(set("/a/b", "/a/*", "/a/{id}", "/a/**"), asSet(index.match("/a/b")));
+        assertEquals(set("/a/b/", "/a/**"), asSet(index.match("/a/b/")));
+        // /a/* 可匹配 /a/，路径变量不能匹配空段
+        assertEquals(set("/a/*", "/a/**"), asSet(index.match("/a/")));
+        assertEquals(set("/a/**"), asSet(index.match("/a")));
+    }
+
+    @Test
+    public void sameResultAsLinearScanForGeneratedPatterns() {
+        String[] patternSegments = {"api", "user", "order", "v1", "42", "*", "**", "{id}", "{id:\\d+}", "u?er",
+                "*.json", "{name}-{version}"};
+        String[] pathSegments = {"api", "user", "order", "v1", "42", "abc", "data.json", "user-v1", "uxer"};
+        Random random = new Random(20200716L);
+        Map<String, ConfigAttribute> configAttributeMap = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            String pattern = randomPath(random, patternSegments);
+            configAttributeMap.put(pattern, new SecurityConfig(pattern));
+        }
+        UrlPatternIndex index = new UrlPatternIndex(configAttributeMap, 1, 0);
+        int matched = 0;
+        for (int i = 0; i < 3000; i++) {
+            String path = randomPath(random, pathSegments);
+            Set<String> expected = linearScan(configAttributeMap, path);
+            assertEquals(path, expected, asSet(index.match(path)));
+            matched += expected.isEmpty() ? 0 : 1;
+        }
+        // 生成的数据需要覆盖到命中的情况，否则比较没有意义
+        assertTrue(matched > 1000);
+    }
+
+    @Test
+    public void cachedResultUnchanged() {
+        UrlPatternIndex index = new UrlPatternIndex(configAttributes(PATTERNS), 1, 1000);
+        for (String path : PATHS) {
+            assertEquals(path, asSet(index.match(path)), asSet(index.match(path)));
+        }
+    }
+
+    private static String randomPath(Random random, String[] segments) {
+        int depth = random.nextInt(5);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append('/').append(segments[random.nextInt(segments.length)]);
+        }
+        if (depth == 0 || random.nextInt(5) == 0) {
+            builder.append('/');
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, ConfigAttribute> configAttributes(List<String> patterns) {
+        Map<String, ConfigAttribute> configAttributeMap = new LinkedHashMap<>();
+        patterns.forEach(pattern -> configAttributeMap.put(pattern, new SecurityConfig(pattern)));
+        return configAttributeMap;
+    }
+
+    private static Set<String> linearScan(Map<String, ConfigAttribute> configAttributeMap, String path) {
+        return configAttributeMap.keySet().stream()
+                .filter(pattern -> PATH_MATCHER.match(pattern, path))
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> asSet(List<ConfigAttribute> configAttributes) {
+        return configAttributes.stream().map(ConfigAttribute::getAttribute).collect(Collectors.toSet());
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -7,6 +7,8 @@ import java.lang.annotation.Target;
 
 /**
  * description: API幂等性注解
+ * 未指定key时从请求中读取一次性token（由RedisTokenUtil生成），指定key时按SpEL计算的幂等key去重；
+ * 首次请求的返回结果会被缓存，重复请求直接返回该结果，不再执行方法
  *
  * @author zhouxinlei
  * @date 2020-05-24 13:40:39
@@ -15,5 +17,23 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ApiIdempotent {
 
+    /**
+     * token来源：head 请求头，param 请求参数
+     */
     String value() default "head";
+
+    /**
+     * token在请求头或请求参数中的名称
+     */
+    String tokenName() default "idempotentToken";
+
+    /**
+     * 幂等key的SpEL表达式，如 #orderDTO.orderNo，为空时使用token
+     */
+    String key() default "";
+
+    /**
+     * 处理中标记及结果缓存时间（单位：秒）
+     */
+    long expireTime() default 300;
 }
@@ -0,0 +1,64 @@
+package com.sparksys.commons.web.component;
+
+import com.sparksys.commons.core.context.BaseContextConstants;
+import com.sparksys.commons.core.context.BaseContextHandler;
+import com.sparksys.commons.core.entity.GlobalAuthUser;
+import com.sparksys.commons.core.utils.jwt.IdentityHeaderUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * description: 网关身份信息过滤器，签名校验通过后直接填充BaseContextHandler及当前请求的认证用户，
+ * 后续获取用户信息时不再访问redis；未配置签名密钥或校验不通过时忽略该请求头
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 10:48:05
+ */
+@Slf4j
+public class IdentityHeaderFilter extends OncePerRequestFilter {
+
+    /**
+     * 当前请求认证用户的request属性名
+     */
+    public static final String AUTH_USER_ATTRIBUTE = IdentityHeaderFilter.class.getName() + ".AUTH_USER";
+
+    private final String secret;
+
+    public IdentityHeaderFilter(String secret) {
+        this.secret = secret;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        String identity = request.getHeader(BaseContextConstants.IDENTITY_HEADER);
+        if (StringUtils.isEmpty(secret) || StringUtils.isEmpty(identity)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        GlobalAuthUser authUser = IdentityHeaderUtil.verify(identity, secret);
+        if (authUser == null) {
+            log.warn("illegal identity header, uri:{}", request.getRequestURI());
+            chain.doFilter(request, response);
+            return;
+        }
+        request.setAttribute(AUTH_USER_ATTRIBUTE, authUser);
+        BaseContextHandler.setUserId(authUser.getId());
+        BaseContextHandler.setAccount(authUser.getAccount());
+        BaseContextHandler.setName(authUser.getName());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            BaseContextHandler.remove();
+        }
+    }
+}
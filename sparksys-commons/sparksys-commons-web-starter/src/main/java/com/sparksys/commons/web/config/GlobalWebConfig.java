@@ -1,7 +1,11 @@
 package com.sparksys.commons.web.config;
 
+import com.sparksys.commons.web.component.IdentityHeaderFilter;
 import com.sparksys.commons.web.component.ResponseResultInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -24,4 +28,19 @@ public class GlobalWebConfig implements WebMvcConfigurer {
     public ResponseResultInterceptor responseResultInterceptor() {
         return new ResponseResultInterceptor();
     }
+
+    /**
+     * 网关身份信息过滤器，需与网关配置相同的sparksys.identity.secret，未配置时不信任身份信息请求头
+     *
+     * @param secret 签名密钥
+     * @return FilterRegistrationBean<IdentityHeaderFilter>
+     */
+    @Bean
+    public FilterRegistrationBean<IdentityHeaderFilter> identityHeaderFilter(@Value("${sparksys.identity.secret:}") String secret) {
+        FilterRegistrationBean<IdentityHeaderFilter> registrationBean =
+                new FilterRegistrationBean<>(new IdentityHeaderFilter(secret));
+        // 在spring security过滤器链之前执行
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registrationBean;
+    }
 }
@@ -3,7 +3,10 @@ package com.sparksys.commons.web.service;
 import com.sparksys.commons.core.constant.AuthConstant;
 import com.sparksys.commons.core.entity.GlobalAuthUser;
 import com.sparksys.commons.core.support.ResponseResultStatus;
+import com.sparksys.commons.web.component.IdentityHeaderFilter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * description: 请求用户接口抽象类
@@ -24,10 +27,23 @@ public abstract class AbstractAuthUserRequest {
      * @date 2020-01-03 15:47:42
      */
     public GlobalAuthUser getUserInfo(String accessToken) {
+        // 网关已校验的身份信息或本次请求已查询过的用户直接返回
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            Object requestAuthUser = requestAttributes.getAttribute(IdentityHeaderFilter.AUTH_USER_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            if (requestAuthUser instanceof GlobalAuthUser) {
+                return (GlobalAuthUser) requestAuthUser;
+            }
+        }
         log.info("accessToken is {}", accessToken);
         String cacheKey = AuthConstant.AUTH_USER.concat(accessToken);
         GlobalAuthUser authUser = getCache(cacheKey);
         ResponseResultStatus.UN_AUTHORIZED.assertNotNull(authUser);
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(IdentityHeaderFilter.AUTH_USER_ATTRIBUTE, authUser,
+                    RequestAttributes.SCOPE_REQUEST);
+        }
         return authUser;
     }
 
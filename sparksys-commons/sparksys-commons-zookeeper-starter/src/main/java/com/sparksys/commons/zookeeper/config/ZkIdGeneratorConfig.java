@@ -0,0 +1,26 @@
+package com.sparksys.commons.zookeeper.config;
+
+import com.sparksys.commons.zookeeper.id.ZkSnowflakeIdGenerator;
+import com.sparksys.commons.zookeeper.prop.ZkIdProperties;
+import org.apache.curator.framework.CuratorFramework;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * description: zookeeper分配机器id的主键生成器配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-11 11:05:13
+ */
+@Configuration
+@ConditionalOnProperty(name = "sparksys.id.zookeeper.enabled", havingValue = "true")
+public class ZkIdGeneratorConfig {
+
+    @Bean
+    public ZkSnowflakeIdGenerator zkSnowflakeIdGenerator(CuratorFramework curatorFramework,
+                                                         ZkIdProperties zkIdProperties) {
+        return new ZkSnowflakeIdGenerator(curatorFramework, zkIdProperties.getGroup(),
+                zkIdProperties.getMaxBackwardMillis(), zkIdProperties.getReportInterval());
+    }
+}
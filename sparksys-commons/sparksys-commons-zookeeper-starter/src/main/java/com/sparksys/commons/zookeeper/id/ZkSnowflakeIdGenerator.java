@@ -0,0 +1,207 @@
+package com.sparksys.commons.zookeeper.id;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sparksys.commons.core.id.IdGenerator;
+import com.sparksys.commons.core.id.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * description: 通过zookeeper租用机器id的雪花算法生成器
+ * 启动时在 /snowflake/{group}/workers 下抢占临时节点作为机器id（0-1023，拆分为数据中心id和机器id），
+ * 会话断开期间暂停发号，防止会话过期后机器id被其他节点占用造成重复；
+ * 定期把最近使用的时间戳写入持久节点，重启后时钟落后于该时间戳超过容忍范围的机器id不会被使用
+ *
+ * @author zhouxinlei
+ * @date 2020-07-11 10:20:45
+ */
+@Slf4j
+public class ZkSnowflakeIdGenerator implements IdGenerator, ConnectionStateListener, InitializingBean,
+        DisposableBean {
+
+    private static final int MAX_WORKERS = (int) ((SnowflakeIdGenerator.MAX_DATA_CENTER_ID + 1)
+            * (SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+
+    private final CuratorFramework curatorFramework;
+
+    private final String workersPath;
+
+    private final String timestampsPath;
+
+    private final long maxBackwardMillis;
+
+    private final long reportInterval;
+
+    private volatile SnowflakeIdGenerator delegate;
+
+    private volatile int workerId = -1;
+
+    /**
+     * 当前是否持有机器id租约
+     */
+    private volatile boolean leased;
+
+    private ScheduledExecutorService reportExecutor;
+
+    public ZkSnowflakeIdGenerator(CuratorFramework curatorFramework, String group, long maxBackwardMillis,
+                                  long reportInterval) {
+        this.curatorFramework = curatorFramework;
+        this.workersPath = ZKPaths.makePath("/snowflake", group, "workers");
+        this.timestampsPath = ZKPaths.makePath("/snowflake", group, "timestamps");
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.reportInterval = reportInterval;
+    }
+
+    @Override
+    public long nextId() {
+        return available().nextId();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        return available().nextIds(count);
+    }
+
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        lease(ThreadLocalRandom.current().nextInt(MAX_WORKERS));
+        curatorFramework.getConnectionStateListenable().addListener(this);
+        reportExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("snowflake-report-%d").setDaemon(true).build());
+        reportExecutor.scheduleWithFixedDelay(this::reportTimestamp, reportInterval, reportInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+        }
+        reportTimestamp();
+        leased = false;
+        try {
+            curatorFramework.delete().guaranteed().forPath(workerPath(workerId));
+        } catch (Exception e) {
+            log.warn("release snowflake worker id {} failed, {}", workerId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void stateChanged(CuratorFramework client, ConnectionState newState) {
+        if (newState == ConnectionState.SUSPENDED || newState == ConnectionState.LOST) {
+            leased = false;
+            log.warn("zookeeper connection {}, snowflake worker id {} suspended", newState, workerId);
+        } else if (newState == ConnectionState.RECONNECTED) {
+            try {
+                // 节点仍由当前会话持有时继续使用原机器id；会话过期后节点可能已被其他实例抢占，
+                // 只判断节点存在会与其他实例使用同一个机器id，此时重新抢占（原机器id已被占用时顺延）
+                Stat stat = client.checkExists().forPath(workerPath(workerId));
+                long sessionId = client.getZookeeperClient().getZooKeeper().getSessionId();
+                if (stat != null && stat.getEphemeralOwner() == sessionId) {
+                    leased = true;
+                } else {
+                    lease(workerId);
+                }
+                log.info("zookeeper reconnected, snowflake worker id {}", workerId);
+            } catch (Exception e) {
+                log.error("re-lease snowflake worker id failed, {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 从start开始依次尝试抢占机器id
+     */
+    private synchronized void lease(int start) throws Exception {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < MAX_WORKERS; i++) {
+            int candidate = (start + i) % MAX_WORKERS;
+            long lastTimestamp = readTimestamp(candidate);
+            if (candidate == workerId && delegate != null) {
+                lastTimestamp = Math.max(lastTimestamp, delegate.getLastTimestamp());
+            }
+            if (lastTimestamp - now > maxBackwardMillis) {
+                log.warn("skip snowflake worker id {}, clock is {}ms behind its last timestamp", candidate,
+                        lastTimestamp - now);
+                continue;
+            }
+            try {
+                curatorFramework.create().creatingParentContainersIfNeeded()
+                        .withMode(CreateMode.EPHEMERAL).forPath(workerPath(candidate));
+            } catch (KeeperException.NodeExistsException e) {
+                continue;
+            }
+            delegate = new SnowflakeIdGenerator(candidate % (SnowflakeIdGenerator.MAX_WORKER_ID + 1),
+                    candidate / (SnowflakeIdGenerator.MAX_WORKER_ID + 1), maxBackwardMillis, lastTimestamp);
+            workerId = candidate;
+            leased = true;
+            log.info("leased snowflake worker id {}", candidate);
+            return;
+        }
+        throw new IllegalStateException("no snowflake worker id available under " + workersPath);
+    }
+
+    private long readTimestamp(int candidate) throws Exception {
+        try {
+            byte[] data = curatorFramework.getData().forPath(timestampPath(candidate));
+            return data == null || data.length == 0 ? -1L
+                    : Long.parseLong(new String(data, StandardCharsets.UTF_8));
+        } catch (KeeperException.NoNodeException e) {
+            return -1L;
+        }
+    }
+
+    private void reportTimestamp() {
+        SnowflakeIdGenerator generator = delegate;
+        if (!leased || generator == null) {
+            return;
+        }
+        long timestamp = Math.max(generator.getLastTimestamp(), System.currentTimeMillis());
+        byte[] data = String.valueOf(timestamp).getBytes(StandardCharsets.UTF_8);
+        String path = timestampPath(workerId);
+        try {
+            if (curatorFramework.checkExists().forPath(path) == null) {
+                curatorFramework.create().creatingParentsIfNeeded().withMode(CreateMode.PERSISTENT)
+                        .forPath(path, data);
+            } else {
+                curatorFramework.setData().forPath(path, data);
+            }
+        } catch (Exception e) {
+            log.warn("report snowflake timestamp failed, worker id {}, {}", workerId, e.getMessage());
+        }
+    }
+
+    private SnowflakeIdGenerator available() {
+        SnowflakeIdGenerator generator = delegate;
+        if (!leased || generator == null) {
+            throw new IllegalStateException("snowflake worker id lease is not held, zookeeper disconnected");
+        }
+        return generator;
+    }
+
+    private String workerPath(int id) {
+        return ZKPaths.makePath(workersPath, String.valueOf(id));
+    }
+
+    private String timestampPath(int id) {
+        return ZKPaths.makePath(timestampsPath, String.valueOf(id));
+    }
+}
@@ -1,5 +1,7 @@
 package com.sparksys.commons.zookeeper.lock;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * description：
  *
@@ -8,7 +10,65 @@ package com.sparksys.commons.zookeeper.lock;
  */
 public interface DistributedLock {
 
+    /**
+     * 获取互斥锁，阻塞直到获取成功
+     *
+     * @param key 键
+     * @return boolean
+     */
     boolean lock(String key);
 
+    /**
+     * 在超时时间内获取互斥锁，同一线程可重入
+     *
+     * @param key  键
+     * @param time 超时时间
+     * @param unit 时间单位
+     * @return boolean
+     */
+    boolean lock(String key, long time, TimeUnit unit);
+
+    /**
+     * 释放互斥锁
+     *
+     * @param key 键
+     * @return boolean
+     */
     boolean releaseLock(String key);
+
+    /**
+     * 在超时时间内获取读锁，读锁之间共享，与写锁互斥
+     *
+     * @param key  键
+     * @param time 超时时间
+     * @param unit 时间单位
+     * @return boolean
+     */
+    boolean readLock(String key, long time, TimeUnit unit);
+
+    /**
+     * 释放读锁
+     *
+     * @param key 键
+     * @return boolean
+     */
+    boolean releaseReadLock(String key);
+
+    /**
+     * 在超时时间内获取写锁
+     *
+     * @param key  键
+     * @param time 超时时间
+     * @param unit 时间单位
+     * @return boolean
+     */
+    boolean writeLock(String key, long time, TimeUnit unit);
+
+    /**
+     * 释放写锁
+     *
+     * @param key 键
+     * @return boolean
+     */
+    boolean releaseWriteLock(String key);
 }
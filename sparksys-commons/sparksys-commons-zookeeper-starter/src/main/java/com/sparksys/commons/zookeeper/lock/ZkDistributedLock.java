@@ -1,17 +1,18 @@
 package com.sparksys.commons.zookeeper.lock;
 
+import com.sparksys.commons.core.lock.LockRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.recipes.cache.PathChildrenCache;
-import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
-import org.apache.zookeeper.CreateMode;
-import org.apache.zookeeper.ZooDefs;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessReadWriteLock;
+import org.apache.curator.utils.ZKPaths;
 import org.springframework.beans.factory.InitializingBean;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * description: zookeeper分布式锁
+ * 每个key对应一组临时顺序节点，等待者只监听前一个节点，释放锁只唤醒下一个等待者；同一线程可重入
  *
  * @author zhouxinlei
  * @date 2020-05-24 13:45:29
@@ -19,99 +20,119 @@ import java.util.concurrent.CountDownLatch;
 @Slf4j
 public class ZkDistributedLock implements InitializingBean, DistributedLock {
 
-    private final static String ROOT_PATH_LOCK = "rootlock";
-    private CountDownLatch countDownLatch = new CountDownLatch(1);
+    private final static String ROOT_PATH_LOCK = "/rootlock";
+
+    private final static String ROOT_PATH_RW_LOCK = "/rwlock";
 
     private CuratorFramework curatorFramework;
 
+    /**
+     * key -> 互斥锁，无线程使用时移除
+     */
+    private final LockRegistry<InterProcessMutex> mutexes = new LockRegistry<>(
+            key -> new InterProcessMutex(curatorFramework, ZKPaths.makePath(ROOT_PATH_LOCK, key)));
+
+    /**
+     * key -> 读写锁，无线程使用时移除
+     */
+    private final LockRegistry<InterProcessReadWriteLock> readWriteLocks = new LockRegistry<>(
+            key -> new InterProcessReadWriteLock(curatorFramework, ZKPaths.makePath(ROOT_PATH_RW_LOCK, key)));
+
     public ZkDistributedLock(CuratorFramework curatorFramework) {
         this.curatorFramework = curatorFramework;
     }
 
     @Override
     public boolean lock(String key) {
-        String keyPath = "/" + ROOT_PATH_LOCK + "/" + key;
-        while (true) {
-            try {
-                curatorFramework
-                        .create()
-                        .creatingParentsIfNeeded()
-                        .withMode(CreateMode.EPHEMERAL_SEQUENTIAL)
-                        .withACL(ZooDefs.Ids.OPEN_ACL_UNSAFE)
-                        .forPath(keyPath);
-                log.info("success to acquire lock for path:{}", keyPath);
-                return true;
-            } catch (Exception e) {
-                log.info("failed to acquire lock for path:{}", keyPath);
-                log.info("while try again .......");
-                try {
-                    if (countDownLatch.getCount() <= 0) {
-                        countDownLatch = new CountDownLatch(1);
-                    }
-                    countDownLatch.await();
-                } catch (InterruptedException interruptedException) {
-                    log.error(interruptedException.getMessage());
-                }
-            }
-            return false;
-        }
+        return lock(key, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean lock(String key, long time, TimeUnit unit) {
+        InterProcessMutex mutex = mutexes.retain(key);
+        return acquire(mutexes, key, mutex, mutex, time, unit);
     }
 
     @Override
     public boolean releaseLock(String key) {
+        InterProcessMutex mutex = mutexes.get(key);
+        return mutex != null && release(mutexes, key, mutex, mutex);
+    }
+
+    @Override
+    public boolean readLock(String key, long time, TimeUnit unit) {
+        InterProcessReadWriteLock readWriteLock = readWriteLocks.retain(key);
+        return acquire(readWriteLocks, key, readWriteLock, readWriteLock.readLock(), time, unit);
+    }
+
+    @Override
+    public boolean releaseReadLock(String key) {
+        InterProcessReadWriteLock readWriteLock = readWriteLocks.get(key);
+        return readWriteLock != null && release(readWriteLocks, key, readWriteLock, readWriteLock.readLock());
+    }
+
+    @Override
+    public boolean writeLock(String key, long time, TimeUnit unit) {
+        InterProcessReadWriteLock readWriteLock = readWriteLocks.retain(key);
+        return acquire(readWriteLocks, key, readWriteLock, readWriteLock.writeLock(), time, unit);
+    }
+
+    @Override
+    public boolean releaseWriteLock(String key) {
+        InterProcessReadWriteLock readWriteLock = readWriteLocks.get(key);
+        return readWriteLock != null && release(readWriteLocks, key, readWriteLock, readWriteLock.writeLock());
+    }
+
+    /**
+     * 获取锁，time小于0时一直等待；获取失败时归还retain时占用的引用
+     */
+    private <T> boolean acquire(LockRegistry<T> registry, String key, T lock, InterProcessMutex mutex, long time,
+                                TimeUnit unit) {
+        boolean acquired = false;
         try {
-            String keyPath = "/" + ROOT_PATH_LOCK + "/" + key;
-            if (curatorFramework.checkExists().forPath(keyPath) != null) {
-                curatorFramework.delete().forPath(keyPath);
+            if (time < 0) {
+                mutex.acquire();
+                acquired = true;
+            } else {
+                acquired = mutex.acquire(time, unit);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
-            log.error("failed to release lock");
+            log.error("failed to acquire lock for key:{}, {}", key, e.getMessage());
+        } finally {
+            if (!acquired) {
+                registry.release(key, lock);
+            }
+        }
+        return acquired;
+    }
+
+    private <T> boolean release(LockRegistry<T> registry, String key, T lock, InterProcessMutex mutex) {
+        try {
+            mutex.release();
+        } catch (IllegalMonitorStateException e) {
+            log.error("lock for key:{} is not held by current thread", key);
+            return false;
+        } catch (Exception e) {
+            log.error("failed to release lock for key:{}, {}", key, e.getMessage());
             return false;
         }
+        registry.release(key, lock);
         return true;
     }
 
     /**
-     * 创建 watcher 事件
+     * 当前持有引用的锁实例数量，包括持有锁和等待中的线程
+     *
+     * @return int
      */
-    private void addWatcher(String path) throws Exception {
-        String keyPath;
-        if (path.equals(ROOT_PATH_LOCK)) {
-            keyPath = "/" + path;
-        } else {
-            keyPath = "/" + ROOT_PATH_LOCK + "/" + path;
-        }
-        final PathChildrenCache cache = new PathChildrenCache(curatorFramework, keyPath, false);
-        cache.start(PathChildrenCache.StartMode.POST_INITIALIZED_EVENT);
-        cache.getListenable().addListener((client, event) -> {
-            if (event.getType().equals(PathChildrenCacheEvent.Type.CHILD_REMOVED)) {
-                String oldPath = event.getData().getPath();
-                log.info("success to release lock for path:{}", oldPath);
-                if (oldPath.contains(path)) {
-                    //释放计数器，让当前的请求获取锁
-                    countDownLatch.countDown();
-                }
-            }
-        });
+    int retainedLocks() {
+        return mutexes.size() + readWriteLocks.size();
     }
 
-    //创建父节点，并创建永久节点
     @Override
     public void afterPropertiesSet() {
         curatorFramework = curatorFramework.usingNamespace("lock-namespace");
-        String path = "/" + ROOT_PATH_LOCK;
-        try {
-            if (curatorFramework.checkExists().forPath(path) == null) {
-                curatorFramework.create()
-                        .creatingParentsIfNeeded()
-                        .withMode(CreateMode.PERSISTENT)
-                        .withACL(ZooDefs.Ids.OPEN_ACL_UNSAFE)
-                        .forPath(path);
-            }
-            addWatcher(ROOT_PATH_LOCK);
-            log.info("root path 的 watcher 事件创建成功");
-        } catch (Exception e) {
-            log.error("connect zookeeper fail，please check the log >> {}", e.getMessage(), e);
-        }
     }
 }
@@ -0,0 +1,38 @@
+package com.sparksys.commons.zookeeper.prop;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * description: zookeeper分配雪花算法机器id配置
+ *
+ * @author zhouxinlei
+ * @date 2020-07-11 10:02:37
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sparksys.id.zookeeper")
+public class ZkIdProperties {
+
+    /**
+     * 是否通过zookeeper分配机器id
+     */
+    private boolean enabled;
+
+    /**
+     * 机器id分组，同一分组内机器id不重复。默认所有服务共用一个分组，保证全局唯一；
+     * 只有当本分组内的服务与其他服务不共用任何表时才可以单独设置分组
+     */
+    private String group = "default";
+
+    /**
+     * 允许的最大时钟回拨（单位：毫秒）
+     */
+    private long maxBackwardMillis = 5;
+
+    /**
+     * 上报最近使用时间戳的间隔（单位：毫秒）
+     */
+    private long reportInterval = 3000;
+}
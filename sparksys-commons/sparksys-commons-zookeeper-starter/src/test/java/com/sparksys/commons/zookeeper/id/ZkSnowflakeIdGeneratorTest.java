@@ -0,0 +1,95 @@
+package com.sparksys.commons.zookeeper.id;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: ZkSnowflakeIdGenerator 测试，基于内嵌的curator TestingServer，
+ * 直接调用stateChanged模拟重连，用另一个客户端模拟会话过期后抢占同一机器id的实例
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 21:05:18
+ */
+public class ZkSnowflakeIdGeneratorTest {
+
+    private static final String WORKERS_PATH = ZKPaths.makePath("/snowflake", "test", "workers");
+
+    private TestingServer server;
+
+    private CuratorFramework client;
+
+    private CuratorFramework otherClient;
+
+    private ZkSnowflakeIdGenerator generator;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TestingServer(true);
+        client = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        client.start();
+        otherClient = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        otherClient.start();
+        generator = new ZkSnowflakeIdGenerator(client, "test", 5000, 60000);
+        generator.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        generator.destroy();
+        otherClient.close();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void keepWorkerIdWhileSessionOwnsNode() {
+        int workerId = generator.getWorkerId();
+        generator.stateChanged(client, ConnectionState.SUSPENDED);
+        generator.stateChanged(client, ConnectionState.RECONNECTED);
+        assertEquals(workerId, generator.getWorkerId());
+        assertTrue(generator.nextId() > 0);
+    }
+
+    @Test
+    public void leaseSameWorkerIdAgainWhenNodeGone() throws Exception {
+        int workerId = generator.getWorkerId();
+        generator.stateChanged(client, ConnectionState.LOST);
+        client.delete().forPath(workerPath(workerId));
+        generator.stateChanged(client, ConnectionState.RECONNECTED);
+        assertEquals(workerId, generator.getWorkerId());
+        assertNotNull(client.checkExists().forPath(workerPath(workerId)));
+        assertTrue(generator.nextId() > 0);
+    }
+
+    @Test
+    public void leaseAnotherWorkerIdWhenNodeOwnedByOtherSession() throws Exception {
+        int workerId = generator.getWorkerId();
+        generator.stateChanged(client, ConnectionState.LOST);
+        // 会话过期后原机器id被其他实例抢占
+        client.delete().forPath(workerPath(workerId));
+        otherClient.create().withMode(CreateMode.EPHEMERAL).forPath(workerPath(workerId));
+        generator.stateChanged(client, ConnectionState.RECONNECTED);
+        assertNotEquals(workerId, generator.getWorkerId());
+        long sessionId = client.getZookeeperClient().getZooKeeper().getSessionId();
+        assertEquals(sessionId, client.checkExists().forPath(workerPath(generator.getWorkerId()))
+                .getEphemeralOwner());
+        assertTrue(generator.nextId() > 0);
+    }
+
+    private static String workerPath(int id) {
+        return ZKPaths.makePath(WORKERS_PATH, String.valueOf(id));
+    }
+}
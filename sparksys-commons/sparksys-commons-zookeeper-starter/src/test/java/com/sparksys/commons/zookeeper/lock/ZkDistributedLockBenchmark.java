@@ -0,0 +1,116 @@
+package com.sparksys.commons.zookeeper.lock;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * description: ZkDistributedLock 竞争基准测试，基于内嵌的curator TestingServer，不随单元测试执行，通过main方法运行
+ * <p>
+ * 每个节点使用独立的curator客户端，模拟多个服务节点竞争：
+ * sameKey：所有线程竞争同一个key，衡量释放锁只唤醒下一个等待者时的交接开销；
+ * distinctKeys：每个线程使用自己的key，作为无竞争时单次加锁解锁的基线
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 16:52:37
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class ZkDistributedLockBenchmark {
+
+    private static final int NODES = 4;
+
+    @State(Scope.Benchmark)
+    public static class Cluster {
+
+        private TestingServer server;
+
+        private CuratorFramework[] clients;
+
+        private ZkDistributedLock[] locks;
+
+        private final AtomicInteger threadIndex = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            server = new TestingServer(true);
+            clients = new CuratorFramework[NODES];
+            locks = new ZkDistributedLock[NODES];
+            for (int i = 0; i < NODES; i++) {
+                clients[i] = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+                clients[i].start();
+                locks[i] = new ZkDistributedLock(clients[i]);
+                locks[i].afterPropertiesSet();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            for (CuratorFramework client : clients) {
+                client.close();
+            }
+            server.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Node {
+
+        private ZkDistributedLock lock;
+
+        private String ownKey;
+
+        @Setup(Level.Trial)
+        public void setUp(Cluster cluster) {
+            int index = cluster.threadIndex.getAndIncrement();
+            lock = cluster.locks[index % NODES];
+            ownKey = "bench:" + index;
+        }
+    }
+
+    @Benchmark
+    public boolean sameKey(Node node) {
+        if (!node.lock.lock("bench:shared", 30, TimeUnit.SECONDS)) {
+            return false;
+        }
+        return node.lock.releaseLock("bench:shared");
+    }
+
+    @Benchmark
+    public boolean distinctKeys(Node node) {
+        if (!node.lock.lock(node.ownKey, 30, TimeUnit.SECONDS)) {
+            return false;
+        }
+        return node.lock.releaseLock(node.ownKey);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ZkDistributedLockBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,165 @@
+package com.sparksys.commons.zookeeper.lock;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * description: ZkDistributedLock 测试，基于内嵌的curator TestingServer
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 16:25:09
+ */
+public class ZkDistributedLockTest {
+
+    private static final String KEY = "order:1";
+
+    private TestingServer server;
+
+    private CuratorFramework client;
+
+    private ZkDistributedLock lock;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TestingServer(true);
+        client = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        client.start();
+        lock = new ZkDistributedLock(client);
+        lock.afterPropertiesSet();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void reentrantLock() {
+        assertTrue(lock.lock(KEY, 1, TimeUnit.SECONDS));
+        assertTrue(lock.lock(KEY, 1, TimeUnit.SECONDS));
+        assertTrue(lock.releaseLock(KEY));
+        // 释放一次后仍持有
+        assertFalse(call(() -> lock.lock(KEY, 200, TimeUnit.MILLISECONDS)));
+        assertTrue(lock.releaseLock(KEY));
+        assertFalse(lock.releaseLock(KEY));
+        assertTrue(call(() -> lock.lock(KEY, 1, TimeUnit.SECONDS) && lock.releaseLock(KEY)));
+        assertEquals(0, lock.retainedLocks());
+    }
+
+    @Test
+    public void timeoutWhileHeldByAnotherThread() {
+        assertTrue(lock.lock(KEY, 1, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        assertFalse(call(() -> lock.lock(KEY, 300, TimeUnit.MILLISECONDS)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertTrue(lock.releaseLock(KEY));
+        assertTrue(call(() -> lock.lock(KEY, 1, TimeUnit.SECONDS) && lock.releaseLock(KEY)));
+    }
+
+    @Test
+    public void waiterAcquiresAfterRelease() throws Exception {
+        assertTrue(lock.lock(KEY, 1, TimeUnit.SECONDS));
+        Future<Boolean> waiter = executor.submit(() -> lock.lock(KEY, 5, TimeUnit.SECONDS) && lock.releaseLock(KEY));
+        Thread.sleep(200);
+        assertFalse(waiter.isDone());
+        assertTrue(lock.releaseLock(KEY));
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void releaseByNonOwnerFails() {
+        assertTrue(lock.lock(KEY, 1, TimeUnit.SECONDS));
+        assertFalse(call(() -> lock.releaseLock(KEY)));
+        assertEquals(1, lock.retainedLocks());
+        assertTrue(lock.releaseLock(KEY));
+        assertEquals(0, lock.retainedLocks());
+    }
+
+    @Test
+    public void readLocksAreShared() {
+        assertTrue(lock.readLock(KEY, 1, TimeUnit.SECONDS));
+        assertTrue(call(() -> lock.readLock(KEY, 1, TimeUnit.SECONDS) && lock.releaseReadLock(KEY)));
+        assertTrue(lock.releaseReadLock(KEY));
+        assertEquals(0, lock.retainedLocks());
+    }
+
+    @Test
+    public void writeLockExcludesReaders() throws Exception {
+        CountDownLatch readerHolding = new CountDownLatch(1);
+        CountDownLatch releaseReader = new CountDownLatch(1);
+        Future<Boolean> reader = executor.submit(() -> {
+            if (!lock.readLock(KEY, 1, TimeUnit.SECONDS)) {
+                return false;
+            }
+            readerHolding.countDown();
+            releaseReader.await();
+            return lock.releaseReadLock(KEY);
+        });
+        assertTrue(readerHolding.await(5, TimeUnit.SECONDS));
+        assertFalse(lock.writeLock(KEY, 300, TimeUnit.MILLISECONDS));
+        releaseReader.countDown();
+        assertTrue(reader.get(5, TimeUnit.SECONDS));
+
+        assertTrue(lock.writeLock(KEY, 1, TimeUnit.SECONDS));
+        assertFalse(call(() -> lock.readLock(KEY, 300, TimeUnit.MILLISECONDS)));
+        assertFalse(call(() -> lock.writeLock(KEY, 300, TimeUnit.MILLISECONDS)));
+        assertTrue(lock.releaseWriteLock(KEY));
+        assertTrue(call(() -> lock.readLock(KEY, 1, TimeUnit.SECONDS) && lock.releaseReadLock(KEY)));
+        assertEquals(0, lock.retainedLocks());
+    }
+
+    @Test
+    public void holdersReleasedWhenUnused() throws Exception {
+        assertTrue(lock.lock(KEY, 1, TimeUnit.SECONDS));
+        Future<Boolean> waiter = executor.submit(() -> lock.lock(KEY, 5, TimeUnit.SECONDS) && lock.releaseLock(KEY));
+        Thread.sleep(200);
+        // 持有者和等待者共用同一个锁实例
+        assertEquals(1, lock.retainedLocks());
+        assertTrue(lock.releaseLock(KEY));
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(0, lock.retainedLocks());
+
+        // 超时失败的获取也要归还引用
+        assertTrue(lock.lock(KEY, 1, TimeUnit.SECONDS));
+        assertFalse(call(() -> lock.lock(KEY, 100, TimeUnit.MILLISECONDS)));
+        assertTrue(lock.releaseLock(KEY));
+        for (int i = 0; i < 20; i++) {
+            String key = "order:" + (i + 100);
+            assertTrue(lock.lock(key, 1, TimeUnit.SECONDS));
+            assertTrue(lock.releaseLock(key));
+        }
+        assertEquals(0, lock.retainedLocks());
+    }
+
+    /**
+     * 在另一个线程中执行，模拟其他线程或节点竞争同一把锁
+     */
+    private boolean call(Callable<Boolean> task) {
+        try {
+            return executor.submit(task).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
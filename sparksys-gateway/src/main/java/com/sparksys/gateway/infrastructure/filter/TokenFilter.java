@@ -5,6 +5,10 @@ import com.alibaba.fastjson.JSON;
 import com.sparksys.commons.core.support.ResponseResultStatus;
 import com.sparksys.commons.core.base.api.result.ApiResult;
 import com.sparksys.commons.core.constant.CoreConstant;
+import com.sparksys.commons.core.context.BaseContextConstants;
+import com.sparksys.commons.core.utils.jwt.IdentityHeaderUtil;
+import com.sparksys.commons.core.utils.jwt.JwtTokenUtil;
+import com.sparksys.commons.core.utils.jwt.TokenInfo;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -14,6 +18,7 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -42,6 +47,12 @@ public class TokenFilter implements GlobalFilter, Ordered {
     @Autowired
     private SecurityRegistry securityRegistry;
 
+    /**
+     * 身份信息签名密钥，需与下游服务一致，未配置时不转发身份信息
+     */
+    @Value("${sparksys.identity.secret:}")
+    private String identitySecret;
+
     @Override
     public int getOrder() {
         return -1000;
@@ -85,18 +96,29 @@ public class TokenFilter implements GlobalFilter, Ordered {
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         ServerHttpResponse response = exchange.getResponse();
+        // 身份信息只能由网关生成，丢弃客户端传入的值
+        ServerHttpRequest.Builder mutate = request.mutate()
+                .headers(httpHeaders -> httpHeaders.remove(BaseContextConstants.IDENTITY_HEADER));
         // 不进行拦截的地址
         if (isIgnoreToken(request.getPath().toString())) {
             log.debug("access filter not execute");
-            return chain.filter(exchange);
+            return chain.filter(exchange.mutate().request(mutate.build()).build());
         }
         String token = getHeader(CoreConstant.JwtTokenConstant.JWT_TOKEN_HEADER, request);
         if (StringUtils.isBlank(token)) {
             return errorResponse(response, ResponseResultStatus.UN_AUTHORIZED);
         }
-        ServerHttpRequest.Builder mutate = request.mutate();
-        ServerHttpRequest build = mutate.build();
-        return chain.filter(exchange.mutate().request(build).build());
+        // 本地校验签名及过期时间，校验结果按token缓存；
+        // 非本系统签发的token（如oauth2服务签发）校验不通过，不生成身份信息，由下游服务自行校验
+        TokenInfo tokenInfo = JwtTokenUtil.parseToken(StringUtils.removeStart(token,
+                CoreConstant.JwtTokenConstant.JWT_TOKEN_HEAD));
+        if (tokenInfo != null && StringUtils.isNotEmpty(identitySecret)) {
+            String identity = IdentityHeaderUtil.sign(tokenInfo, identitySecret);
+            if (identity != null) {
+                mutate.header(BaseContextConstants.IDENTITY_HEADER, identity);
+            }
+        }
+        return chain.filter(exchange.mutate().request(mutate.build()).build());
     }
 
     protected Mono<Void> errorResponse(ServerHttpResponse response, ResponseResultStatus responseResultStatus) {
@@ -0,0 +1,127 @@
+package com.sparksys.gateway.infrastructure.filter;
+
+import com.sparksys.commons.core.constant.CoreConstant;
+import com.sparksys.commons.core.context.BaseContextConstants;
+import com.sparksys.commons.core.entity.GlobalAuthUser;
+import com.sparksys.commons.core.utils.jwt.IdentityHeaderUtil;
+import com.sparksys.commons.core.utils.jwt.JwtTokenUtil;
+import com.sparksys.gateway.infrastructure.prop.IgnoreUrlsProperties;
+import com.sparksys.gateway.infrastructure.registry.SecurityRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * description: TokenFilter 测试，客户端传入的身份信息请求头在任何路由上都不能转发到下游
+ *
+ * @author zhouxinlei
+ * @date 2020-07-16 19:35:18
+ */
+public class TokenFilterTest {
+
+    private static final String SECRET = "identity-secret";
+
+    private static final String FORGED_IDENTITY = "1|YWRtaW4|YWRtaW4|0|9999999999999|forged";
+
+    private TokenFilter tokenFilter;
+
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.set(exchange);
+        return Mono.empty();
+    };
+
+    @Before
+    public void setUp() {
+        IgnoreUrlsProperties ignoreUrlsProperties = new IgnoreUrlsProperties();
+        ignoreUrlsProperties.setUrls(Collections.singletonList("/public/**"));
+        tokenFilter = new TokenFilter();
+        ReflectionTestUtils.setField(tokenFilter, "securityRegistry", new SecurityRegistry(ignoreUrlsProperties));
+        ReflectionTestUtils.setField(tokenFilter, "identitySecret", SECRET);
+    }
+
+    @Test
+    public void ignoredRouteStripsClientIdentityHeader() {
+        filter(MockServerHttpRequest.get("/public/info")
+                .header(BaseContextConstants.IDENTITY_HEADER, FORGED_IDENTITY)
+                .build());
+        assertNotNull(forwarded.get());
+        assertFalse(forwardedHeaders().containsKey(BaseContextConstants.IDENTITY_HEADER));
+    }
+
+    @Test
+    public void ignoredRouteWithTokenStillStripsClientIdentityHeader() {
+        filter(MockServerHttpRequest.get("/doc.html")
+                .header(CoreConstant.JwtTokenConstant.JWT_TOKEN_HEADER, bearerToken())
+                .header(BaseContextConstants.IDENTITY_HEADER, FORGED_IDENTITY)
+                .build());
+        assertNotNull(forwarded.get());
+        assertFalse(forwardedHeaders().containsKey(BaseContextConstants.IDENTITY_HEADER));
+    }
+
+    @Test
+    public void protectedRouteReplacesClientIdentityHeader() {
+        filter(MockServerHttpRequest.get("/api/user/1")
+                .header(CoreConstant.JwtTokenConstant.JWT_TOKEN_HEADER, bearerToken())
+                .header(BaseContextConstants.IDENTITY_HEADER, FORGED_IDENTITY)
+                .build());
+        List<String> identities = forwardedHeaders().get(BaseContextConstants.IDENTITY_HEADER);
+        assertNotNull(identities);
+        assertEquals(1, identities.size());
+        GlobalAuthUser authUser = IdentityHeaderUtil.verify(identities.get(0), SECRET);
+        assertNotNull(authUser);
+        assertEquals(Long.valueOf(1001L), authUser.getId());
+        assertEquals("admin", authUser.getAccount());
+    }
+
+    @Test
+    public void unverifiableTokenForwardedWithoutIdentityHeader() {
+        filter(MockServerHttpRequest.get("/api/user/1")
+                .header(CoreConstant.JwtTokenConstant.JWT_TOKEN_HEADER, "Bearer not-a-jwt")
+                .header(BaseContextConstants.IDENTITY_HEADER, FORGED_IDENTITY)
+                .build());
+        assertNotNull(forwarded.get());
+        assertFalse(forwardedHeaders().containsKey(BaseContextConstants.IDENTITY_HEADER));
+    }
+
+    @Test
+    public void missingTokenNotForwarded() {
+        filter(MockServerHttpRequest.get("/api/user/1")
+                .header(BaseContextConstants.IDENTITY_HEADER, FORGED_IDENTITY)
+                .build());
+        assertNull(forwarded.get());
+    }
+
+    private void filter(MockServerHttpRequest request) {
+        tokenFilter.filter(MockServerWebExchange.from(request), chain).block();
+    }
+
+    private HttpHeaders forwardedHeaders() {
+        return forwarded.get().getRequest().getHeaders();
+    }
+
+    private static String bearerToken() {
+        GlobalAuthUser authUser = new GlobalAuthUser();
+        authUser.setId(1001L);
+        authUser.setAccount("admin");
+        authUser.setName("admin");
+        authUser.setPermissionVersion(1L);
+        return CoreConstant.JwtTokenConstant.JWT_TOKEN_HEAD + JwtTokenUtil.generateToken(authUser);
+    }
+}
@@ -1,6 +1,7 @@
 package com.sparksys.oauth.domain.service;
 
 import cn.hutool.core.util.StrUtil;
+import com.google.common.collect.Lists;
 import com.sparksys.oauth.application.service.ILoginLogService;
 import com.sparksys.oauth.domain.repository.IAuthUserRepository;
 import com.sparksys.oauth.domain.repository.ILoginLogRepository;
@@ -93,15 +94,11 @@ public class LoginLogServiceImpl implements ILoginLogService {
         }
         loginLogRepository.saveLoginLog(loginLog);
         LocalDate now = LocalDate.now();
-        LocalDate tenDays = now.plusDays(-9);
-        cacheProviderService.remove(CacheKey.LOGIN_LOG_TOTAL);
-        cacheProviderService.remove(CacheKey.buildKey(CacheKey.LOGIN_LOG_TODAY, now));
-        cacheProviderService.remove(CacheKey.buildKey(CacheKey.LOGIN_LOG_TODAY_IP, now));
-        cacheProviderService.remove(CacheKey.buildKey(CacheKey.LOGIN_LOG_BROWSER));
-        cacheProviderService.remove(CacheKey.buildKey(CacheKey.LOGIN_LOG_SYSTEM));
-        if (authUser != null) {
-            cacheProviderService.remove(CacheKey.buildKey(CacheKey.LOGIN_LOG_TEN_DAY, tenDays, account));
-        }
+        //浏览器、操作系统、近十天访问统计由缓存提前刷新，不在每次登录时清除
+        List<String> cacheKeys = Lists.newArrayList(CacheKey.LOGIN_LOG_TOTAL,
+                CacheKey.buildKey(CacheKey.LOGIN_LOG_TODAY, now),
+                CacheKey.buildKey(CacheKey.LOGIN_LOG_TODAY_IP, now));
+        cacheProviderService.multiRemove(cacheKeys);
     }
 
     @Override
@@ -124,19 +121,19 @@ public class LoginLogServiceImpl implements ILoginLogService {
     @Override
     public List<LoginLogCount> findLastTenDaysVisitCount(String account) {
         LocalDate tenDays = LocalDate.now().plusDays(-9);
-        return cacheProviderService.get(CacheKey.buildKey(CacheKey.LOGIN_LOG_TEN_DAY, tenDays, account),
+        return cacheProviderService.getRefreshAhead(CacheKey.buildKey(CacheKey.LOGIN_LOG_TEN_DAY, tenDays, account),
                 (key) -> loginLogRepository.findLastTenDaysVisitCount(tenDays, account));
     }
 
     @Override
     public List<LoginLogCount> findByBrowser() {
-        return cacheProviderService.get(CacheKey.buildKey(CacheKey.LOGIN_LOG_BROWSER),
+        return cacheProviderService.getRefreshAhead(CacheKey.buildKey(CacheKey.LOGIN_LOG_BROWSER),
                 (key) -> loginLogRepository.findByBrowser());
     }
 
     @Override
     public List<LoginLogCount> findByOperatingSystem() {
-        return cacheProviderService.get(CacheKey.buildKey(CacheKey.LOGIN_LOG_SYSTEM),
+        return cacheProviderService.getRefreshAhead(CacheKey.buildKey(CacheKey.LOGIN_LOG_SYSTEM),
                 (key) -> loginLogRepository.findByOperatingSystem());
     }
 